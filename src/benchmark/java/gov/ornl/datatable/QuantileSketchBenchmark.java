@@ -0,0 +1,124 @@
+package gov.ornl.datatable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the exact percentiles (DoubleStatistics sorts the values) against the approximate
+ * percentiles (QuantileSketch) of the values of a column and of a brushed query, for a range of
+ * rank errors. The accuracy of each rank error (the largest observed rank error of the quartiles
+ * and the median) is printed when the state is set up, so it can be read next to the latencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuantileSketchBenchmark {
+    private final static double QUANTILES[] = {.25, .5, .75};
+
+    @Param({"100000", "1000000"})
+    private int rowCount;
+
+    @Param({"0.001", "0.01", "0.05"})
+    private double rankError;
+
+    private double columnValues[];
+    // the rows of a brush over a clustered (e.g., time ordered) column, and of the brush moved by 1% of the rows
+    private BitSet queriedRows;
+    private BitSet movedQueriedRows;
+    private double queriedValues[];
+    private double movedQueriedValues[];
+    private QuantileSketch.BlockSketches queryBlockSketches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        columnValues = new double[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            columnValues[row] = random.nextGaussian();
+        }
+
+        queriedRows = new BitSet(rowCount);
+        queriedRows.set(rowCount / 4, rowCount / 4 + rowCount / 2);
+        movedQueriedRows = new BitSet(rowCount);
+        movedQueriedRows.set(rowCount / 4 + rowCount / 100, rowCount / 4 + rowCount / 2 + rowCount / 100);
+        queriedValues = getValues(queriedRows);
+        movedQueriedValues = getValues(movedQueriedRows);
+        queryBlockSketches = QuantileSketch.BlockSketches.build(queriedValues, queriedRows, rankError, null);
+
+        System.out.println();
+        System.out.println("rows " + rowCount + ", rank error " + rankError + ": observed rank error " +
+                getObservedRankError(QuantileSketch.build(columnValues, rankError), columnValues) + " (column), " +
+                getObservedRankError(QuantileSketch.BlockSketches.build(movedQueriedValues, movedQueriedRows, rankError,
+                        queryBlockSketches).getSketch(), movedQueriedValues) + " (moved brush)");
+    }
+
+    @Benchmark
+    public double exactColumnPercentiles() {
+        DoubleStatistics statistics = DoubleStatistics.compute(columnValues);
+        return statistics.getPercentile25() + statistics.getMedian() + statistics.getPercentile75();
+    }
+
+    @Benchmark
+    public double approximateColumnPercentiles() {
+        return getQuartileSum(QuantileSketch.build(columnValues, rankError));
+    }
+
+    @Benchmark
+    public double exactQueryPercentiles() {
+        DoubleStatistics statistics = DoubleStatistics.compute(movedQueriedValues);
+        return statistics.getPercentile25() + statistics.getMedian() + statistics.getPercentile75();
+    }
+
+    // the query sketch is merged from block sketches, of which only the blocks the brush moved over are rebuilt
+    @Benchmark
+    public double approximateQueryPercentiles() {
+        return getQuartileSum(QuantileSketch.BlockSketches.build(movedQueriedValues, movedQueriedRows, rankError,
+                queryBlockSketches).getSketch());
+    }
+
+    private double[] getValues(BitSet rows) {
+        double values[] = new double[rows.cardinality()];
+        int counter = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            values[counter++] = columnValues[row];
+        }
+        return values;
+    }
+
+    private static double getQuartileSum(QuantileSketch sketch) {
+        return sketch.getQuantile(.25) + sketch.getQuantile(.5) + sketch.getQuantile(.75);
+    }
+
+    // largest difference between the quantile and the fraction of the values below the sketch's estimate
+    private static double getObservedRankError(QuantileSketch sketch, double values[]) {
+        double sortedValues[] = values.clone();
+        Arrays.sort(sortedValues);
+        double observedRankError = 0.;
+        for (double quantile : QUANTILES) {
+            int rank = Arrays.binarySearch(sortedValues, sketch.getQuantile(quantile));
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            observedRankError = Math.max(observedRankError, Math.abs((double)rank / sortedValues.length - quantile));
+        }
+        return observedRankError;
+    }
+}
@@ -18,7 +18,7 @@ public class CorrelationMatrixCell {
 
         cellRectangle.setStroke(Color.gray(0.4));
         cellRectangle.setOnMouseEntered(event -> {
-            Tooltip.install(cellRectangle, new Tooltip("r (" + yColumn.getName() + ", " + xColumn.getName() + ") = " + String.valueOf(correlation)));
+            Tooltip.install(cellRectangle, new Tooltip("r (" + yColumn.getName() + ", " + xColumn.getName() + ") = " + String.valueOf(getCorrelation())));
         });
         cellRectangle.setOnMouseExited(event -> {
             Tooltip.uninstall(cellRectangle, null);
@@ -307,6 +307,8 @@ public class CorrelationMatrixView extends Region implements DataTableListener {
     private void initView() {
         if (dataTable != null && !dataTable.isEmpty()) {
             doubleColumns = dataTable.getEnabledDoubleColumns();
+            CorrelationMatrix correlationMatrix = isShowingQueryCorrelations() && dataTable.getActiveQuery().hasColumnSelections() ?
+                    dataTable.getActiveQuery().getQueryCorrelationMatrix() : dataTable.getCorrelationMatrix();
 
             for (int yColumnIndex = 0; yColumnIndex < doubleColumns.size(); yColumnIndex++) {
                 DoubleColumn yColumn = doubleColumns.get(yColumnIndex);
@@ -331,12 +333,7 @@ public class CorrelationMatrixView extends Region implements DataTableListener {
                         titleGraphics.getChildren().add(xColumnTitleText);
                     }
 
-                    double correlation = 0;
-                    if (isShowingQueryCorrelations() && dataTable.getActiveQuery().hasColumnSelections()) {
-                        correlation = ((DoubleColumnSummaryStats)dataTable.getActiveQuery().getColumnQuerySummaryStats(yColumn)).getCorrelationCoefficientList().get(dataTable.getColumnIndex(xColumn));
-                    } else {
-                        correlation = yColumn.getStatistics().getCorrelationCoefficientList().get(dataTable.getColumnIndex(xColumn));
-                    }
+                    double correlation = correlationMatrix.getCorrelation(yColumn, xColumn);
 
                     CorrelationMatrixCell cell = new CorrelationMatrixCell(xColumn, yColumn, correlation);
                     cellGraphics.getChildren().add(cell.getCellRectangle());
@@ -349,6 +346,18 @@ public class CorrelationMatrixView extends Region implements DataTableListener {
         }
     }
 
+    // re-reads the correlations of the cells (the columns are unchanged)
+    private void updateCorrelations() {
+        CorrelationMatrix correlationMatrix = isShowingQueryCorrelations() && dataTable.getActiveQuery().hasColumnSelections() ?
+                dataTable.getActiveQuery().getQueryCorrelationMatrix() : dataTable.getCorrelationMatrix();
+        for (ArrayList<CorrelationMatrixCell> cells : cellRows) {
+            for (CorrelationMatrixCell cell : cells) {
+                cell.setCorrelation(correlationMatrix.getCorrelation(cell.getYColumn(), cell.getXColumn()));
+            }
+        }
+        setCellColors();
+    }
+
     private void clearView() {
         cellRows.clear();
         xColumnTitles.clear();
@@ -647,6 +656,18 @@ public class CorrelationMatrixView extends Region implements DataTableListener {
         resizeView();
     }
 
+    // the appended rows only change the correlations
+    @Override
+    public void dataTableRowsAppended(DataTable dataTable, int fromRow, int toRow) {
+        if (cellRows.isEmpty()) {
+            clearView();
+            initView();
+            resizeView();
+        } else {
+            updateCorrelations();
+        }
+    }
+
     @Override
     public void dataTableTuplesRemoved(DataTable dataModel, int numTuplesRemoved) {
         clearView();
@@ -695,4 +716,18 @@ public class CorrelationMatrixView extends Region implements DataTableListener {
         initView();
         resizeView();
     }
+
+    // rebuilds the matrix once for all of the changes of a batch (extent and histogram bin changes don't affect it)
+    @Override
+    public void dataTableChanged(DataTable dataTable, DataTableChangeSet changeSet) {
+        if (changeSet.isReset() || changeSet.hasQueryChanges() || changeSet.getRemovedRowCount() > 0 ||
+                changeSet.hasColumnChanges() || changeSet.hasHighlightedColumnChange() ||
+                changeSet.hasStatisticsChanges()) {
+            clearView();
+            initView();
+            resizeView();
+        } else if (changeSet.getAppendedFromRow() != -1) {
+            dataTableRowsAppended(dataTable, changeSet.getAppendedFromRow(), changeSet.getAppendedToRow());
+        }
+    }
 }
@@ -875,7 +875,14 @@ public class CrossVis extends Application implements DataTableListener {
         medianStatsModeMI.setToggleGroup(summaryStatsDisplayModeMenuGroup);
         medianStatsModeMI.setSelected(dataTableView.getSummaryStatisticsDisplayMode() == DataTableView.STATISTICS_DISPLAY_MODE.MEDIAN_BOXPLOT);
 
-        summaryStatsDisplayModeMenu.getItems().addAll(meanStatsModeMI, medianStatsModeMI);
+        CheckMenuItem approximateStatisticsMI = new CheckMenuItem("Approximate Percentiles for Large Data");
+        approximateStatisticsMI.setSelected(dataTable.getApproximateStatistics());
+        approximateStatisticsMI.selectedProperty().addListener(((observable, oldValue, newValue) -> {
+            dataTable.setApproximateStatistics(newValue);
+        }));
+
+        summaryStatsDisplayModeMenu.getItems().addAll(meanStatsModeMI, medianStatsModeMI, new SeparatorMenuItem(),
+                approximateStatisticsMI);
 
         summaryStatsDisplayModeMenuGroup.selectedToggleProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null && newValue != oldValue) {
@@ -981,6 +988,10 @@ public class CrossVis extends Application implements DataTableListener {
 //            }
 //        });
 
+        // evaluate brushed selections on a worker thread so dragging a brush over large data does not block the UI
+        CheckMenuItem asynchronousQueriesCheckMenuItem = new CheckMenuItem("Evaluate Selections in the Background");
+        asynchronousQueriesCheckMenuItem.selectedProperty().bindBidirectional(dataTable.asynchronousQueriesProperty());
+
         CheckMenuItem showScattplotMarginValuesCheckMenuItem = new CheckMenuItem("Show Scatterplot Margin Values");
         showScattplotMarginValuesCheckMenuItem.selectedProperty().bindBidirectional(dataTableView.showScatterplotMarginValuesProperty());
 //        showScattplotMarginValuesCheckMenuItem.setSelected(dataTableView.isShowingScatterplotMarginValues());
@@ -997,7 +1008,8 @@ public class CrossVis extends Application implements DataTableListener {
 
         viewMenu.getItems().addAll(showScatterplotsMI, showScattplotMarginValuesCheckMenuItem, showHistogramsMI, showSummaryStatsMI, showCorrelationsMI,
                 polylineDisplayMenu, summaryStatsDisplayModeMenu, axisLayoutMenu, setNumericalAxisExtentsMenuItem,
-                changeHistogramBinCountMenuItem, enableDataTableUpdatesCheckMenuItem, openImageGridViewMenuItem);
+                changeHistogramBinCountMenuItem, enableDataTableUpdatesCheckMenuItem, asynchronousQueriesCheckMenuItem,
+                openImageGridViewMenuItem);
 
 
         // Data Menu
@@ -1626,6 +1638,11 @@ public class CrossVis extends Application implements DataTableListener {
         updatePercentSelected();
     }
 
+    @Override
+    public void dataTableRowsAppended(DataTable dataTable, int fromRow, int toRow) {
+        updatePercentSelected();
+    }
+
     @Override
     public void dataTableTuplesRemoved(DataTable dataTable, int numTuplesRemoved) {
         updatePercentSelected();
@@ -0,0 +1,146 @@
+package gov.ornl.datatable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.BitSet;
+
+/**
+ * The histogram bin of every row of a numeric or temporal column for one histogram range and
+ * bin count. The bins are computed once with the same arithmetic as DoubleHistogram and
+ * TemporalHistogram, so the histograms of any set of rows (all rows, queried rows, nonqueried
+ * rows) are counted with an integer pass over the rows instead of dividing every value again.
+ * Rows that fall in no bin are stored as -1.
+ */
+class BinIndex {
+    private final static double EPSILON = 0.000001;
+
+    // the range and bin count the index was built for (temporal bounds are epoch milliseconds)
+    private double lowerBound;
+    private double upperBound;
+    private int numBins;
+
+    // one byte per row when the bin indices fit, otherwise one short per row
+    private byte byteBins[];
+    private short shortBins[];
+    private int size;
+
+    private BinIndex(double lowerBound, double upperBound, int numBins, int size) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.numBins = numBins;
+        this.size = size;
+        if (numBins <= Byte.MAX_VALUE) {
+            byteBins = new byte[size];
+        } else {
+            shortBins = new short[size];
+        }
+    }
+
+    // returns null if the range or bin count can not be indexed (the histogram then bins the values itself)
+    static BinIndex build(double values[], int size, double minValue, double maxValue, int numBins) {
+        if (Double.isNaN(minValue) || Double.isNaN(maxValue) || numBins <= 0 || numBins > Short.MAX_VALUE) {
+            return null;
+        }
+
+        BinIndex index = new BinIndex(minValue, maxValue, numBins, size);
+        double binSize = (maxValue - minValue) / numBins;
+        for (int row = 0; row < size; row++) {
+            double value = values[row];
+            int binIndex = (int)((value - minValue) / binSize);
+            if (binIndex < 0) {
+                // the value is smaller than the minValue
+                binIndex = -1;
+            } else if (binIndex >= numBins) {
+                // a value equal to the max value goes in the last bin
+                binIndex = Math.abs(value - maxValue) <= EPSILON ? numBins - 1 : -1;
+            }
+            index.setBin(row, binIndex);
+        }
+        return index;
+    }
+
+    static BinIndex build(long values[], int size, Instant startInstant, Instant endInstant, int numBins) {
+        if (startInstant == null || endInstant == null || numBins <= 0 || numBins > Short.MAX_VALUE) {
+            return null;
+        }
+        long startMillis = startInstant.toEpochMilli();
+        long endMillis = endInstant.toEpochMilli();
+        long binMillis = Duration.between(startInstant, endInstant).dividedBy(numBins).toMillis();
+        if (binMillis == 0) {
+            return null;
+        }
+
+        BinIndex index = new BinIndex(startMillis, endMillis, numBins, size);
+        for (int row = 0; row < size; row++) {
+            long value = values[row];
+            int binIndex = (int)((value - startMillis) / binMillis);
+            if (binIndex < 0) {
+                binIndex = -1;
+            } else if (binIndex >= numBins) {
+                binIndex = value == endMillis ? numBins - 1 : -1;
+            }
+            index.setBin(row, binIndex);
+        }
+        return index;
+    }
+
+    // true if the index was built for the range and bin count over the given number of rows
+    boolean matches(double minValue, double maxValue, int numBins, int size) {
+        return this.numBins == numBins && this.size == size && Double.compare(lowerBound, minValue) == 0 &&
+                Double.compare(upperBound, maxValue) == 0;
+    }
+
+    boolean matches(Instant startInstant, Instant endInstant, int numBins, int size) {
+        return startInstant != null && endInstant != null &&
+                matches((double)startInstant.toEpochMilli(), (double)endInstant.toEpochMilli(), numBins, size);
+    }
+
+    int getNumBins() {
+        return numBins;
+    }
+
+    double getLowerBound() {
+        return lowerBound;
+    }
+
+    double getUpperBound() {
+        return upperBound;
+    }
+
+    // bin of the row, or -1 if the row falls in no bin (or is past the rows of the index)
+    int getBin(int row) {
+        if (row >= size) {
+            return -1;
+        }
+        return byteBins != null ? byteBins[row] : shortBins[row];
+    }
+
+    // counts the rows in each bin
+    int[] countBins(BitSet rows) {
+        int binCounts[] = new int[numBins];
+        if (byteBins != null) {
+            for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+                int bin = byteBins[row];
+                if (bin >= 0) {
+                    binCounts[bin]++;
+                }
+            }
+        } else {
+            for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+                int bin = shortBins[row];
+                if (bin >= 0) {
+                    binCounts[bin]++;
+                }
+            }
+        }
+        return binCounts;
+    }
+
+    private void setBin(int row, int bin) {
+        if (byteBins != null) {
+            byteBins[row] = (byte)bin;
+        } else {
+            shortBins[row] = (short)bin;
+        }
+    }
+}
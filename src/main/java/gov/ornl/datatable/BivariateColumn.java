@@ -1,5 +1,7 @@
 package gov.ornl.datatable;
 
+import java.util.BitSet;
+
 public class BivariateColumn extends Column {
 
     private Column column1;
@@ -13,8 +15,8 @@ public class BivariateColumn extends Column {
         this.column2 = column2;
     }
 
-    public boolean setFocusContext(Tuple tuple, int elementIdx) {
-        getFocusTuples().add(tuple);
+    protected boolean setFocusContext(int row) {
+        setRowInFocus(row);
         return true;
     }
 
@@ -22,28 +24,34 @@ public class BivariateColumn extends Column {
         Column column = column1;
         column1 = column2;
         column2 = column;
-        int columnIndex = dataModel.getColumnIndex(this);
-        for (Tuple tuple : dataModel.getTuples()) {
-            swapTupleElementValues((Object[])tuple.getElement(columnIndex));
-        }
     }
 
-    private void swapTupleElementValues(Object values[]) {
-        Object tempValue = values[0];
-        values[0] = values[1];
-        values[1] = tempValue;
+    // the values are read from the two source columns so no rows are stored here
+    @Override
+    public Object[] getValue(int row) {
+        return new Object[] {column1.getValue(row), column2.getValue(row)};
     }
 
+    @Override
+    protected void addValue(Object value) { }
+
+    @Override
+    protected void retainRows(BitSet rows) { }
+
+    @Override
+    protected void clearValues() { }
+
     public Column getColumn1() { return column1; }
 
     public Column getColumn2() { return column2; }
 
 
     @Override
-    public void calculateStatistics() {
+    protected Runnable prepareStatistics() {
         if (summaryStats == null) {
             summaryStats = new BivariateColumnSummaryStats(this, getDataTable().getNumHistogramBins(), null);
         }
+        return () -> { };
     }
 
     @Override
@@ -10,8 +10,9 @@ public class BivariateColumnSummaryStats extends ColumnSummaryStats {
     }
 
     @Override
-    public void calculateStatistics() {
+    protected Runnable prepareStatistics() {
         // nothing to do because this is a merge of two existing columns
+        return () -> { };
     }
 
     @Override
@@ -19,5 +20,21 @@ public class BivariateColumnSummaryStats extends ColumnSummaryStats {
         // nothing to do because this is linked to other columns
     }
 
+    @Override
+    protected BivariateColumnSummaryStats copy() {
+        return new BivariateColumnSummaryStats(bivariateColumn(), numHistogramBins, query);
+    }
+
     public BivariateColumn bivariateColumn() { return (BivariateColumn)column; }
+
+    // density of the two columns (over the queried rows for query statistics), counted on demand and cached
+    // by the data table or query; null if either column has no histogram bins
+    public Histogram2D getHistogram2D() {
+        Column column1 = bivariateColumn().getColumn1();
+        Column column2 = bivariateColumn().getColumn2();
+        if (query == null) {
+            return column.getDataTable().getHistogram2D(column1, column2);
+        }
+        return query.getQueryHistogram2D(column1, column2);
+    }
 }
@@ -5,17 +5,23 @@ import java.util.*;
 public class CategoricalColumn extends Column {
 
     private ArrayList<String> categories = new ArrayList<>();
+    // dictionary from category string to its index in the categories list
+    private HashMap<String, Integer> categoryIDMap = new HashMap<>();
+    // each row stores the index of its category in the categories list
+    private int values[] = new int[0];
     private CategoricalColumnSummaryStats summaryStats;
 
     public CategoricalColumn(String name, List<String> categories) {
         super(name);
         if (categories != null && (categories.size() > 0)) {
-            this.categories.addAll(categories);
+            for (String category : categories) {
+                addCategory(category);
+            }
         }
     }
 
-    public boolean setFocusContext(Tuple tuple, int elementIdx) {
-        getFocusTuples().add(tuple);
+    protected boolean setFocusContext(int row) {
+        setRowInFocus(row);
         return true;
     }
 
@@ -24,76 +30,176 @@ public class CategoricalColumn extends Column {
     }
 
     public int getCategoryID(String category) {
-        return categories.indexOf(category);
+        Integer categoryID = categoryIDMap.get(category);
+        return categoryID == null ? -1 : categoryID;
     }
 
     public String getCategory(int id) {
-        if (id > 0 && id < categories.size()) {
+        if (id >= 0 && id < categories.size()) {
             return categories.get(id);
         }
         return null;
     }
 
-    public void addCategory(String category) {
-        if (!categories.contains(category)) {
+    public int addCategory(String category) {
+        Integer categoryID = categoryIDMap.get(category);
+        if (categoryID == null) {
+            categoryID = categories.size();
             categories.add(category);
+            categoryIDMap.put(category, categoryID);
         }
+        return categoryID;
+    }
+
+    public int getCategoryID(int row) {
+        return values[row];
+    }
+
+    @Override
+    public String getValue(int row) {
+        return categories.get(values[row]);
+    }
+
+    @Override
+    protected void addValue(Object value) {
+        int categoryID = addCategory((String)value);
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, growCapacity(values.length, size + 1));
+        }
+        values[size++] = categoryID;
+    }
+
+    @Override
+    protected void retainRows(BitSet rows) {
+        // the rows of each category are counted while the values are compacted
+        int categoryCounts[] = new int[categories.size()];
+        int newSize = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            int categoryID = values[row];
+            values[newSize++] = categoryID;
+            categoryCounts[categoryID]++;
+        }
+        size = newSize;
+
+        // drop categories that no longer have any rows; the rows are only renumbered if a category was dropped
+        int newCategoryIDs[] = new int[categories.size()];
+        ArrayList<String> newCategories = new ArrayList<>();
+        for (int i = 0; i < categories.size(); i++) {
+            if (categoryCounts[i] > 0) {
+                newCategoryIDs[i] = newCategories.size();
+                newCategories.add(categories.get(i));
+            }
+        }
+        if (newCategories.size() == categories.size()) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            values[i] = newCategoryIDs[values[i]];
+        }
+
+        categories.clear();
+        categoryIDMap.clear();
+        for (String category : newCategories) {
+            addCategory(category);
+        }
+    }
+
+    @Override
+    protected void clearValues() {
+        values = new int[0];
+        size = 0;
     }
 
     @Override
-    public void calculateStatistics() {
+    protected Runnable prepareStatistics() {
         if (summaryStats == null) {
             summaryStats = new CategoricalColumnSummaryStats(this, null);
         }
-        summaryStats.setValues(getValues());
+        return summaryStats.prepareCategoryIDs(getCategoryIDs());
     }
 
-    public String[] getValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-
-        String values[] = new String[getDataTable().getTupleCount()];
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            values[i] = (String) getDataTable().getTuple(i).getElement(columnIndex);
+    @Override
+    protected Runnable prepareAppendedStatistics(int fromRow) {
+        if (summaryStats == null) {
+            return prepareStatistics();
         }
+        return summaryStats.prepareAppendedCategoryIDs(Arrays.copyOfRange(values, fromRow, size));
+    }
 
+    public int[] getCategoryIDs() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // the column's category id array without a copy (it may be longer than the number of rows and must not be modified)
+    int[] getCategoryIDArray() {
         return values;
     }
 
-    public List<String> getValuesAsList() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-        ArrayList<String> valuesList = new ArrayList<>();
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            valuesList.add((String) getDataTable().getTuple(i).getElement(columnIndex));
-        }
-        return valuesList;
+    public int[] getQueriedCategoryIDs() {
+        Query query = getDataTable().getActiveQuery();
+        return getCategoryIDs(query.getQueriedRows(), query.getQueriedTupleCount());
     }
 
-    public String[] getQueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
+    public int[] getNonqueriedCategoryIDs() {
+        Query query = getDataTable().getActiveQuery();
+        return getCategoryIDs(query.getNonQueriedRows(), query.getNonQueriedTupleCount());
+    }
+
+    // category ids of the rows in [fromRow, toRow) that are set in rows (e.g., the appended rows of a query)
+    int[] getCategoryIDs(BitSet rows, int fromRow, int toRow) {
+        return getCategoryIDs(values, rows, fromRow, toRow);
+    }
 
-        Set<Tuple> queriedTuples = getDataTable().getActiveQuery().getQueriedTuples();
-        String values[] = new String[queriedTuples.size()];
+    // category ids of the rows in [fromRow, toRow) of an id array (e.g., an array captured for a worker thread)
+    static int[] getCategoryIDs(int values[], BitSet rows, int fromRow, int toRow) {
+        int rowValues[] = new int[rows.get(fromRow, toRow).cardinality()];
+        int counter = 0;
+        for (int row = rows.nextSetBit(fromRow); row >= 0 && row < toRow; row = rows.nextSetBit(row + 1)) {
+            rowValues[counter++] = values[row];
+        }
+        return rowValues;
+    }
+
+    private int[] getCategoryIDs(BitSet rows, int rowCount) {
+        int categoryIDs[] = new int[rowCount];
 
         int counter = 0;
-        for (Tuple tuple : queriedTuples) {
-            values[counter++] = (String)tuple.getElement(columnIndex);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            categoryIDs[counter++] = values[row];
         }
 
-        return values;
+        return categoryIDs;
     }
 
-    public String[] getNonqueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
+    public String[] getValues() {
+        String categoryValues[] = new String[size];
+        for (int i = 0; i < size; i++) {
+            categoryValues[i] = categories.get(values[i]);
+        }
 
-        Set<Tuple> nonqueriedTuples = getDataTable().getActiveQuery().getNonQueriedTuples();
-        String values[] = new String[nonqueriedTuples.size()];
+        return categoryValues;
+    }
 
-        int counter = 0;
-        for (Tuple tuple : nonqueriedTuples) {
-            values[counter++] = (String)tuple.getElement(columnIndex);
+    public List<String> getValuesAsList() {
+        return Arrays.asList(getValues());
+    }
+
+    public String[] getQueriedValues() {
+        return toCategories(getQueriedCategoryIDs());
+    }
+
+    public String[] getNonqueriedValues() {
+        return toCategories(getNonqueriedCategoryIDs());
+    }
+
+    private String[] toCategories(int categoryIDs[]) {
+        String categoryValues[] = new String[categoryIDs.length];
+        for (int i = 0; i < categoryIDs.length; i++) {
+            categoryValues[i] = categories.get(categoryIDs[i]);
         }
 
-        return values;
+        return categoryValues;
     }
 
     @Override
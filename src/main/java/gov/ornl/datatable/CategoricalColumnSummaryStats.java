@@ -6,11 +6,13 @@ import javafx.beans.property.SimpleMapProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 public class CategoricalColumnSummaryStats extends ColumnSummaryStats {
-    private String[] values;
+    // category ids of the values
+    private int[] categoryIDs;
 
 //    private MapProperty<String, Integer> categoryCountMap;
     private ObjectProperty<CategoricalHistogram> histogram;
@@ -18,7 +20,7 @@ public class CategoricalColumnSummaryStats extends ColumnSummaryStats {
     public CategoricalColumnSummaryStats(Column column, Query query) {
         super(column, 0, query);
 
-        values = null;
+        categoryIDs = null;
 //        categoryCountMap = new SimpleMapProperty<String, Integer>(FXCollections.observableHashMap());
     }
 
@@ -34,13 +36,29 @@ public class CategoricalColumnSummaryStats extends ColumnSummaryStats {
 //        return categoryCountMapProperty().get();
 //    }
 
-    public void setValues(String[] values) {
-        this.values = values;
-        calculateStatistics();
+    public void setCategoryIDs(int[] categoryIDs) {
+        prepareCategoryIDs(categoryIDs).run();
     }
 
-    public String[] getValues() {
-        return values;
+    protected Runnable prepareCategoryIDs(int[] categoryIDs) {
+        this.categoryIDs = categoryIDs;
+        return prepareStatistics();
+    }
+
+    // counts only the appended category ids (e.g., of rows appended to the table) into the histogram
+    protected Runnable prepareAppendedCategoryIDs(int[] appendedCategoryIDs) {
+        int[] previousCategoryIDs = categoryIDs == null ? new int[0] : categoryIDs;
+        categoryIDs = Arrays.copyOf(previousCategoryIDs, previousCategoryIDs.length + appendedCategoryIDs.length);
+        System.arraycopy(appendedCategoryIDs, 0, categoryIDs, previousCategoryIDs.length, appendedCategoryIDs.length);
+
+        CategoricalHistogram previousHistogram = getHistogram();
+        CategoricalHistogram newHistogram = previousHistogram == null ? createHistogram() :
+                previousHistogram.append(categoryIDs, appendedCategoryIDs);
+        return () -> setHistogram(newHistogram);
+    }
+
+    public int[] getCategoryIDs() {
+        return categoryIDs;
     }
 
     private CategoricalColumn categoricalColumn() {
@@ -48,8 +66,9 @@ public class CategoricalColumnSummaryStats extends ColumnSummaryStats {
     }
 
     @Override
-    public void calculateStatistics() {
-        calculateHistogram();
+    protected Runnable prepareStatistics() {
+        CategoricalHistogram newHistogram = createHistogram();
+        return () -> setHistogram(newHistogram);
 //        for (String value : values) {
 //            if (categoryCountMap.containsKey(value)) {
 //                int valueCount = categoryCountMap.get(value);
@@ -73,6 +92,23 @@ public class CategoricalColumnSummaryStats extends ColumnSummaryStats {
 
     @Override
     public void calculateHistogram() {
-        setHistogram(new CategoricalHistogram(column.getName(), categoricalColumn().getCategories(), values));
+        setHistogram(createHistogram());
+    }
+
+    @Override
+    protected CategoricalColumnSummaryStats copy() {
+        CategoricalColumnSummaryStats copy = new CategoricalColumnSummaryStats(column, query);
+        copy.categoryIDs = categoryIDs;
+        copy.setHistogram(getHistogram());
+        return copy;
+    }
+
+    @Override
+    long getEstimatedSize() {
+        return categoryIDs == null ? 0 : 4L * categoryIDs.length;
+    }
+
+    private CategoricalHistogram createHistogram() {
+        return new CategoricalHistogram(column.getName(), categoricalColumn(), categoryIDs);
     }
 }
@@ -1,50 +1,73 @@
 package gov.ornl.datatable;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 
 public class CategoricalHistogram extends Histogram {
-    private String values[];
-    private List<String> categories;
-    private HashMap<String, Integer> categoryCounts = new HashMap<>();
+    // category ids (indices into the categories list) of the values
+    private int categoryIDs[];
+    private CategoricalColumn column;
+    // counts indexed by category id
+    private int categoryCounts[];
 
-    public CategoricalHistogram(String name, List<String> categories, String values[]) {
+    public CategoricalHistogram(String name, CategoricalColumn column, int categoryIDs[]) {
         super(name);
-        this.categories = categories;
-        this.values = values;
+        this.column = column;
+        this.categoryIDs = categoryIDs;
         calculateStatistics();
     }
 
+    // the histogram with appended category ids counted in (allCategoryIDs includes the appended ids), so only
+    // the appended ids are counted; categories added to the column since start with a count of zero
+    CategoricalHistogram append(int allCategoryIDs[], int appendedCategoryIDs[]) {
+        CategoricalHistogram appendedHistogram = new CategoricalHistogram(getName(), column, allCategoryIDs,
+                Arrays.copyOf(categoryCounts, column.getCategories().size()));
+        for (int categoryID : appendedCategoryIDs) {
+            appendedHistogram.categoryCounts[categoryID]++;
+        }
+        return appendedHistogram;
+    }
+
+    private CategoricalHistogram(String name, CategoricalColumn column, int categoryIDs[], int categoryCounts[]) {
+        super(name);
+        this.column = column;
+        this.categoryIDs = categoryIDs;
+        this.categoryCounts = categoryCounts;
+    }
+
     public List<String> getCategories() {
-        return categories;
+        return column.getCategories();
     }
 
     public int getCategoryCount(String category) {
-        return categoryCounts.get(category);
+        int categoryID = column.getCategoryID(category);
+        if (categoryID < 0 || categoryID >= categoryCounts.length) {
+            return 0;
+        }
+        return categoryCounts[categoryID];
+    }
+
+    public int getCategoryCount(int categoryID) {
+        return categoryCounts[categoryID];
     }
 
     public int getNumCategories() {
-        return categories.size();
+        return categoryCounts.length;
     }
 
     public int getTotalCount() {
-        return values.length;
+        return categoryIDs.length;
     }
 
-    public void setValues (String values[]) {
-        this.values = values;
+    public void setCategoryIDs(int categoryIDs[]) {
+        this.categoryIDs = categoryIDs;
         calculateStatistics();
     }
 
     public void calculateStatistics() {
-        categoryCounts.clear();
-        for (String category : categories) {
-            categoryCounts.put(category, 0);
-        }
-
-        for (String value : values) {
-            int count = categoryCounts.get(value);
-            categoryCounts.put(value, count+1);
+        categoryCounts = new int[column.getCategories().size()];
+        for (int categoryID : categoryIDs) {
+            categoryCounts[categoryID]++;
         }
     }
 }
@@ -5,40 +5,140 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Set;
 
 public abstract class Column {
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
     protected DataTable dataModel;
     private StringProperty name;
     private BooleanProperty enabled;
 
-    private HashSet<Tuple> focusTuples = new HashSet<>();
-    private HashSet<Tuple> lowerContextTuples = new HashSet<>();
-    private HashSet<Tuple> upperContextTuples = new HashSet<>();
+    // number of rows stored in this column's value array
+    protected int size = 0;
+
+    // focus / lower context / upper context state of each row as bitsets over the row indices
+    private BitSet focusRows = new BitSet();
+    private BitSet lowerContextRows = new BitSet();
+    private BitSet upperContextRows = new BitSet();
+
+    // lazily created Set<Tuple> views of the bitsets
+    private Set<Tuple> focusTuples;
+    private Set<Tuple> lowerContextTuples;
+    private Set<Tuple> upperContextTuples;
 
     public Column(String name) {
         setName(name);
         setEnabled(true);
     }
 
-    public abstract boolean setFocusContext(Tuple tuple, int elementIdx);
+    // classifies the row as focus, lower context, or upper context; returns false if the row is in a context region
+    protected abstract boolean setFocusContext(int row);
+
+    protected void clearFocusContext() {
+        focusRows.clear();
+        lowerContextRows.clear();
+        upperContextRows.clear();
+    }
+
+    protected void setRowInFocus(int row) { focusRows.set(row); }
+
+    protected void setRowInLowerContext(int row) { lowerContextRows.set(row); }
+
+    protected void setRowInUpperContext(int row) { upperContextRows.set(row); }
+
+    public boolean isRowInFocus(int row) { return focusRows.get(row); }
 
-    public Set<Tuple> getFocusTuples() { return focusTuples; }
+    public boolean isRowInLowerContext(int row) { return lowerContextRows.get(row); }
 
-    public Set<Tuple> getLowerContextTuples() { return lowerContextTuples; }
+    public boolean isRowInUpperContext(int row) { return upperContextRows.get(row); }
 
-    public Set<Tuple> getUpperContextTuples() { return upperContextTuples; }
+    // the returned bitsets are owned by the column and must not be modified
+    public BitSet getFocusRows() { return focusRows; }
+
+    public BitSet getLowerContextRows() { return lowerContextRows; }
+
+    public BitSet getUpperContextRows() { return upperContextRows; }
+
+    public Set<Tuple> getFocusTuples() {
+        if (focusTuples == null) {
+            focusTuples = new RowTupleSet(dataModel, focusRows);
+        }
+        return focusTuples;
+    }
+
+    public Set<Tuple> getLowerContextTuples() {
+        if (lowerContextTuples == null) {
+            lowerContextTuples = new RowTupleSet(dataModel, lowerContextRows);
+        }
+        return lowerContextTuples;
+    }
+
+    public Set<Tuple> getUpperContextTuples() {
+        if (upperContextTuples == null) {
+            upperContextTuples = new RowTupleSet(dataModel, upperContextRows);
+        }
+        return upperContextTuples;
+    }
 
     protected void setDataModel(DataTable dataModel) {
         this.dataModel = dataModel;
+        focusTuples = null;
+        lowerContextTuples = null;
+        upperContextTuples = null;
     }
 
     public DataTable getDataTable() {
         return dataModel;
     }
 
-    public abstract void calculateStatistics();
+    // returns the (boxed) value stored for the row
+    public abstract Object getValue(int row);
+
+    // appends a value to the end of the column's value array
+    protected abstract void addValue(Object value);
+
+    // keeps only the values of the given rows, moving them to the front of the value array in row order
+    // (the array is compacted in place, so its capacity is kept for rows that are added later)
+    protected abstract void retainRows(BitSet rows);
+
+    // removes all values from the column
+    protected abstract void clearValues();
+
+    protected int getSize() {
+        return size;
+    }
+
+    // a bitset with all of the column's rows set
+    protected BitSet getAllRows() {
+        BitSet allRows = new BitSet(size);
+        allRows.set(0, size);
+        return allRows;
+    }
+
+    // computes the new capacity for a value array that must hold at least minCapacity values
+    protected static int growCapacity(int currentCapacity, int minCapacity) {
+        int newCapacity = currentCapacity + (currentCapacity >> 1);
+        if (newCapacity < minCapacity) {
+            newCapacity = minCapacity;
+        }
+        return newCapacity < DEFAULT_INITIAL_CAPACITY ? DEFAULT_INITIAL_CAPACITY : newCapacity;
+    }
+
+    public void calculateStatistics() {
+        prepareStatistics().run();
+    }
+
+    // computes the column statistics without changing any observable state (so it can run on a worker
+    // thread) and returns the step that publishes the results
+    protected abstract Runnable prepareStatistics();
+
+    // computes the column statistics after the rows from fromRow on were appended; columns that can merge
+    // the appended rows into their current statistics override this, the others recompute them
+    protected Runnable prepareAppendedStatistics(int fromRow) {
+        return prepareStatistics();
+    }
 
     public abstract ColumnSummaryStats getStatistics();
 
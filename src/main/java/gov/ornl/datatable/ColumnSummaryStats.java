@@ -18,10 +18,25 @@ public abstract class ColumnSummaryStats {
         return column;
     }
 
-    public abstract void calculateStatistics();
+    public void calculateStatistics() {
+        prepareStatistics().run();
+    }
+
+    // computes the statistics without changing any observable state (so it can run on a worker thread)
+    // and returns the step that publishes the results to the properties
+    protected abstract Runnable prepareStatistics();
 
     public abstract void calculateHistogram();
 
+    // a new statistics object with the same values and published state (the values, statistics, and
+    // histograms are shared, since they are replaced instead of modified when the statistics are updated)
+    protected abstract ColumnSummaryStats copy();
+
+    // estimated memory (in bytes) of the values the statistics keep, not counting the shared row sets
+    long getEstimatedSize() {
+        return 0;
+    }
+
     public void setNumHistogramBins(int numBins) {
         if (numBins != numHistogramBins) {
             numHistogramBins = numBins;
@@ -0,0 +1,74 @@
+package gov.ornl.datatable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Pearson correlation coefficients between all pairs of double columns over a set of rows,
+ * derived from the row set's CorrelationSums. The matrix is computed once per data (or query)
+ * change and shared by the summary statistics and the views.
+ */
+public class CorrelationMatrix {
+    private HashMap<Column, Integer> columnIndices = new HashMap<>();
+    private long rowCount;
+    // correlation of each pair of double columns (symmetric)
+    private double correlations[][];
+
+    // rows are the rows (all rows if null) of the first tableRowCount rows the sums cover; the sums are rebuilt from
+    // them about the rows' own means when the shifted sums lost too many digits (e.g., a narrow brush far
+    // from the column means the sums of a query are shifted by)
+    CorrelationMatrix(CorrelationSums correlationSums, BitSet rows, int tableRowCount) {
+        if (!correlationSums.isPrecise()) {
+            correlationSums = CorrelationSums.compute(correlationSums.getColumns(), rows, tableRowCount, null);
+        }
+
+        List<DoubleColumn> columns = correlationSums.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndices.put(columns.get(i), i);
+        }
+        rowCount = correlationSums.getCount();
+
+        int numColumns = columns.size();
+        correlations = new double[numColumns][numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            for (int j = i; j < numColumns; j++) {
+                // a column without variation has no correlation (as with PearsonsCorrelation); rounding can
+                // push the coefficient of (nearly) collinear columns slightly past 1, so it is clamped
+                double correlation = Double.NaN;
+                if (rowCount > 1 && correlationSums.hasVariation(i) && correlationSums.hasVariation(j)) {
+                    correlation = i == j ? 1. : correlationSums.getCoMoment(i, j) /
+                            Math.sqrt(correlationSums.getCoMoment(i, i) * correlationSums.getCoMoment(j, j));
+                    correlation = Math.max(-1., Math.min(1., correlation));
+                }
+                correlations[i][j] = correlation;
+                correlations[j][i] = correlation;
+            }
+        }
+    }
+
+    // number of rows the correlations were computed over
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // correlation between the two columns; NaN if either is not a double column of the matrix
+    public double getCorrelation(Column column1, Column column2) {
+        Integer index1 = columnIndices.get(column1);
+        Integer index2 = columnIndices.get(column2);
+        if (index1 == null || index2 == null) {
+            return Double.NaN;
+        }
+        return correlations[index1][index2];
+    }
+
+    // correlations between the column and each of the columns in order
+    public List<Double> getCorrelations(Column column, List<Column> columns) {
+        ArrayList<Double> columnCorrelations = new ArrayList<>(columns.size());
+        for (Column otherColumn : columns) {
+            columnCorrelations.add(getCorrelation(column, otherColumn));
+        }
+        return columnCorrelations;
+    }
+}
@@ -0,0 +1,338 @@
+package gov.ornl.datatable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sufficient statistics for the correlations between double columns over a set of rows: the
+ * row count and the sums of the values and of the pairwise products of the values. The values
+ * are shifted by a per-column reference value (the column mean when the sums are first built) so
+ * the sums stay well conditioned. Rows can be added to and subtracted from the sums, so a query
+ * change only costs the rows whose query flag flipped and appended rows are simply added.
+ *
+ * A full computation processes the rows in blocks: each block gathers its values for all columns
+ * and accumulates the column means and the co-moments about those means, and the blocks are
+ * combined with the pairwise (Chan et al.) update, on the fork/join pool for large row sets.
+ */
+class CorrelationSums {
+    // row sets with at least this many rows are processed on the fork/join pool
+    private final static int PARALLEL_CORRELATION_THRESHOLD = 100000;
+    // number of rows gathered per block (the block values of all columns should stay in cache)
+    private final static int CORRELATION_BLOCK_SIZE = 4096;
+    // a co-moment below this fraction of the column's sum of squared shifted values has lost too many digits to
+    // cancellation (the rows are far from the reference value), so the sums are rebuilt about the rows' means
+    private final static double PRECISION_TOLERANCE = 1e-6;
+    // deviations from the mean of up to this many ulps of the mean are rounding error of a constant column
+    private final static double VARIATION_ULPS = 16.;
+
+    private List<DoubleColumn> columns;
+    private double shifts[];
+    private long count;
+    // sums of the shifted values and (upper triangle) of the products of the shifted values
+    private double sums[];
+    private double productSums[][];
+
+    private CorrelationSums(List<DoubleColumn> columns, double shifts[]) {
+        this.columns = columns;
+        this.shifts = shifts;
+        sums = new double[columns.size()];
+        productSums = new double[columns.size()][columns.size()];
+    }
+
+    // computes the sums over the given rows of the columns (all rows if rows is null); the values are
+    // shifted by the given reference values or, if shifts is null, by the means of the rows
+    static CorrelationSums compute(List<DoubleColumn> columns, BitSet rows, int rowCount, double shifts[]) {
+        double columnValues[][] = getColumnValues(columns);
+        MomentsTask task = new MomentsTask(columnValues, rows, 0, rowCount);
+        Moments moments = rowCount < PARALLEL_CORRELATION_THRESHOLD ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+
+        if (shifts == null) {
+            // a column with NaN or infinite values has no usable mean, so its values are not shifted
+            shifts = new double[columns.size()];
+            for (int i = 0; i < shifts.length; i++) {
+                shifts[i] = Double.isFinite(moments.means[i]) ? moments.means[i] : 0.;
+            }
+        }
+
+        CorrelationSums correlationSums = new CorrelationSums(new ArrayList<>(columns), shifts);
+        correlationSums.count = moments.count;
+        int numColumns = columns.size();
+        double meanOffsets[] = new double[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            meanOffsets[i] = moments.means[i] - correlationSums.shifts[i];
+            correlationSums.sums[i] = moments.count * meanOffsets[i];
+        }
+        for (int i = 0; i < numColumns; i++) {
+            for (int j = i; j < numColumns; j++) {
+                correlationSums.productSums[i][j] = moments.coMoments[i][j] + moments.count * meanOffsets[i] * meanOffsets[j];
+            }
+        }
+        return correlationSums;
+    }
+
+    List<DoubleColumn> getColumns() {
+        return columns;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    // true if the sums cover the given columns, in any order
+    boolean hasColumns(List<DoubleColumn> columns) {
+        return this.columns.size() == columns.size() && new HashSet<>(this.columns).containsAll(columns);
+    }
+
+    // true if the sums cover (at least) the given columns
+    boolean containsColumns(List<DoubleColumn> columns) {
+        return new HashSet<>(this.columns).containsAll(columns);
+    }
+
+    // true if the sums cover the given columns in the same order and use the same reference values
+    boolean hasLayout(List<DoubleColumn> columns, double shifts[]) {
+        return this.columns.equals(columns) && Arrays.equals(this.shifts, shifts);
+    }
+
+    // sums over the same rows for the given columns, which must all be covered by these sums
+    CorrelationSums select(List<DoubleColumn> columns) {
+        int indices[] = new int[columns.size()];
+        double selectedShifts[] = new double[columns.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = this.columns.indexOf(columns.get(i));
+            selectedShifts[i] = shifts[indices[i]];
+        }
+
+        CorrelationSums selected = new CorrelationSums(new ArrayList<>(columns), selectedShifts);
+        selected.count = count;
+        for (int i = 0; i < indices.length; i++) {
+            selected.sums[i] = sums[indices[i]];
+            for (int j = i; j < indices.length; j++) {
+                int index1 = Math.min(indices[i], indices[j]);
+                int index2 = Math.max(indices[i], indices[j]);
+                selected.productSums[i][j] = productSums[index1][index2];
+            }
+        }
+        return selected;
+    }
+
+    double[] getShifts() {
+        return shifts;
+    }
+
+    // adds the rows in [fromRow, toRow) (e.g., rows appended to the table)
+    void addRows(int fromRow, int toRow) {
+        double columnValues[][] = getColumnValues(columns);
+        double rowValues[] = new double[columns.size()];
+        for (int row = fromRow; row < toRow; row++) {
+            updateRow(columnValues, rowValues, row, 1.);
+        }
+    }
+
+    // adds the flipped rows that are now included and subtracts the flipped rows that are not
+    void update(BitSet flippedRows, BitSet includedRows) {
+        double columnValues[][] = getColumnValues(columns);
+        double rowValues[] = new double[columns.size()];
+        for (int row = flippedRows.nextSetBit(0); row >= 0; row = flippedRows.nextSetBit(row + 1)) {
+            updateRow(columnValues, rowValues, row, includedRows.get(row) ? 1. : -1.);
+        }
+    }
+
+    // sums over the rows that are in these sums but not in the other sums (which must cover a subset of the rows)
+    CorrelationSums subtract(CorrelationSums other) {
+        CorrelationSums difference = new CorrelationSums(columns, shifts);
+        difference.count = count - other.count;
+        for (int i = 0; i < sums.length; i++) {
+            difference.sums[i] = sums[i] - other.sums[i];
+            for (int j = i; j < sums.length; j++) {
+                difference.productSums[i][j] = productSums[i][j] - other.productSums[i][j];
+            }
+        }
+        return difference;
+    }
+
+    // false if a NaN or infinite value reached the sums (subtracting the row again can not remove it)
+    boolean isFinite() {
+        for (int i = 0; i < sums.length; i++) {
+            if (!Double.isFinite(sums[i]) || !Double.isFinite(productSums[i][i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // sum of the products of the deviations of the two columns from their means (i <= j)
+    double getCoMoment(int i, int j) {
+        return productSums[i][j] - sums[i] * sums[j] / count;
+    }
+
+    // true if the co-moments of every column keep enough digits (the co-moment is a difference of sums of
+    // the shifted values, so it cancels when the rows are far from the reference value); sums with NaN or
+    // infinite values are not made more precise by rebuilding them
+    boolean isPrecise() {
+        for (int i = 0; i < sums.length; i++) {
+            double coMoment = getCoMoment(i, i);
+            if (Double.isFinite(coMoment) && productSums[i][i] != 0. && !(coMoment > PRECISION_TOLERANCE * productSums[i][i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true if the values of the column vary over the rows by more than the rounding error of a constant
+    // column's deviations from its mean (only meaningful for precise sums)
+    boolean hasVariation(int i) {
+        double roundingError = VARIATION_ULPS * Math.ulp(shifts[i] + sums[i] / count);
+        return getCoMoment(i, i) > count * roundingError * roundingError;
+    }
+
+    private void updateRow(double columnValues[][], double rowValues[], int row, double sign) {
+        for (int i = 0; i < rowValues.length; i++) {
+            rowValues[i] = columnValues[i][row] - shifts[i];
+        }
+        count += (long)sign;
+        for (int i = 0; i < rowValues.length; i++) {
+            double value = sign * rowValues[i];
+            sums[i] += value;
+            double products[] = productSums[i];
+            for (int j = i; j < rowValues.length; j++) {
+                products[j] += value * rowValues[j];
+            }
+        }
+    }
+
+    private static double[][] getColumnValues(List<DoubleColumn> columns) {
+        double columnValues[][] = new double[columns.size()][];
+        for (int i = 0; i < columnValues.length; i++) {
+            columnValues[i] = columns.get(i).getValueArray();
+        }
+        return columnValues;
+    }
+
+    // count, means, and co-moments (sums of products of deviations from the means) of a set of rows
+    private static class Moments {
+        long count;
+        double means[];
+        double coMoments[][];
+
+        Moments(int numColumns) {
+            means = new double[numColumns];
+            coMoments = new double[numColumns][numColumns];
+        }
+
+        void combine(Moments other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = other.count;
+                means = other.means;
+                coMoments = other.coMoments;
+                return;
+            }
+
+            double n = count + other.count;
+            double weight = (double)count * other.count / n;
+            int numColumns = means.length;
+            double deltas[] = new double[numColumns];
+            for (int i = 0; i < numColumns; i++) {
+                deltas[i] = other.means[i] - means[i];
+            }
+            for (int i = 0; i < numColumns; i++) {
+                for (int j = i; j < numColumns; j++) {
+                    coMoments[i][j] += other.coMoments[i][j] + deltas[i] * deltas[j] * weight;
+                }
+                means[i] += deltas[i] * other.count / n;
+            }
+            count += other.count;
+        }
+    }
+
+    private static class MomentsTask extends RecursiveTask<Moments> {
+        private double columnValues[][];
+        private BitSet rows;
+        private int fromRow;
+        private int toRow;
+
+        MomentsTask(double columnValues[][], BitSet rows, int fromRow, int toRow) {
+            this.columnValues = columnValues;
+            this.rows = rows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected Moments compute() {
+            if (toRow - fromRow > CORRELATION_BLOCK_SIZE && getPool() != null) {
+                int midRow = (fromRow + toRow) >>> 1;
+                MomentsTask lowerTask = new MomentsTask(columnValues, rows, fromRow, midRow);
+                lowerTask.fork();
+                Moments upperMoments = new MomentsTask(columnValues, rows, midRow, toRow).compute();
+                Moments moments = lowerTask.join();
+                moments.combine(upperMoments);
+                return moments;
+            }
+
+            Moments moments = new Moments(columnValues.length);
+            double blockValues[][] = new double[columnValues.length][Math.max(0, Math.min(CORRELATION_BLOCK_SIZE, toRow - fromRow))];
+            for (int blockStart = fromRow; blockStart < toRow; blockStart += CORRELATION_BLOCK_SIZE) {
+                moments.combine(computeBlock(blockValues, blockStart, Math.min(blockStart + CORRELATION_BLOCK_SIZE, toRow)));
+            }
+            return moments;
+        }
+
+        private Moments computeBlock(double blockValues[][], int blockStart, int blockEnd) {
+            int numColumns = columnValues.length;
+            Moments moments = new Moments(numColumns);
+
+            // gather the values of the block's rows, column by column
+            int count = 0;
+            if (rows == null) {
+                count = blockEnd - blockStart;
+                for (int i = 0; i < numColumns; i++) {
+                    System.arraycopy(columnValues[i], blockStart, blockValues[i], 0, count);
+                }
+            } else {
+                for (int row = rows.nextSetBit(blockStart); row >= 0 && row < blockEnd; row = rows.nextSetBit(row + 1)) {
+                    for (int i = 0; i < numColumns; i++) {
+                        blockValues[i][count] = columnValues[i][row];
+                    }
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return moments;
+            }
+
+            moments.count = count;
+            for (int i = 0; i < numColumns; i++) {
+                double values[] = blockValues[i];
+                double sum = 0.;
+                for (int k = 0; k < count; k++) {
+                    sum += values[k];
+                }
+                double mean = sum / count;
+                moments.means[i] = mean;
+                for (int k = 0; k < count; k++) {
+                    values[k] -= mean;
+                }
+            }
+            for (int i = 0; i < numColumns; i++) {
+                double deviations1[] = blockValues[i];
+                for (int j = i; j < numColumns; j++) {
+                    double deviations2[] = blockValues[j];
+                    double coMoment = 0.;
+                    for (int k = 0; k < count; k++) {
+                        coMoment += deviations1[k] * deviations2[k];
+                    }
+                    moments.coMoments[i][j] = coMoment;
+                }
+            }
+            return moments;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package gov.ornl.datatable;
 
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.SetChangeListener;
@@ -8,24 +9,49 @@ import javafx.util.Pair;
 
 import java.io.File;
 import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DataTable {
     private static final int DEFAULT_NUM_HISTOGRAM_BINS = 50;
     private static final int MAX_NUM_HISTOGRAM_BINS = 100;
+    // tables with at least this many rows calculate the statistics of the columns in parallel
+    private static final int PARALLEL_STATISTICS_THRESHOLD = 100000;
+    private static final double DEFAULT_APPROXIMATE_STATISTICS_RANK_ERROR = 0.01;
+    private static final long DEFAULT_QUERY_RESULT_CACHE_SIZE = 64L * 1024 * 1024;
 
     private final static Logger log = Logger.getLogger(DataTable.class.getName());
 
-    // List of enabled tuples
-    protected ArrayList<Tuple> tuples;
+    // Number of tuples (rows) stored in the column value arrays
+    protected int tupleCount = 0;
 
-    protected HashSet<Tuple> focusTuples = new HashSet<>();
+    // rows that are in the focus region of every column / in the context region of at least one column
+    protected BitSet focusRows = new BitSet();
 
-    protected HashSet<Tuple> contextTuples = new HashSet<>();
+    protected BitSet contextRows = new BitSet();
+
+    protected Set<Tuple> focusTuples = new RowTupleSet(this, focusRows);
+
+    protected Set<Tuple> contextTuples = new RowTupleSet(this, contextRows);
 
     // List of enabled columns
     protected ArrayList<Column> columns;
@@ -33,8 +59,8 @@ public class DataTable {
     // List of disabled columns
     protected ArrayList<Column> disabledColumns;
 
-    // List of tuple elements for disabled columns
-    protected ArrayList<Tuple> disabledColumnTuples;
+    // disabled columns whose statistics were not recalculated with the enabled columns (e.g., rows were added)
+    private HashSet<Column> disabledColumnsWithStaleStatistics = new HashSet<>();
 
     // List of active listeners
     private ArrayList<DataTableListener> listeners;
@@ -42,8 +68,14 @@ public class DataTable {
     // Special columns
     private Column highlightedColumn = null;
 
+    // notifications deferred by the open batch (null outside of a batch) and the nesting depth of batches
+    private DataTableChangeSet changeSet;
+    private int batchDepth = 0;
+    // true if a selection changed in the open batch, so the query is evaluated when the batch finishes
+    private boolean queryEvaluationPending = false;
+
     // List of saved queries
-    private ArrayList<Query> savedQueryList;
+    private ArrayList<SavedQuery> savedQueryList = new ArrayList<>();
 
     // Current active query
     private Query activeQuery;
@@ -63,10 +95,39 @@ public class DataTable {
     // boolean property controls whether or not nonquery statistics are calculated
     private BooleanProperty calculateNonQueryStatistics = new SimpleBooleanProperty(false);
 
+    // correlations between the double columns over all rows (computed on demand after the data changes)
+    private CorrelationMatrix correlationMatrix;
+    // sums the correlations over all rows are derived from; rows appended by addTuples are added to them
+    private CorrelationSums correlationSums;
+
+    // 2D histograms of column pairs over all rows, by [x column, y column] (recounted when a column's bins change)
+    private HashMap<List<Column>, Histogram2D> histogram2DMap = new HashMap<>();
+
+    // boolean property controls whether percentiles and whiskers are estimated with quantile sketches
+    private BooleanProperty approximateStatistics = new SimpleBooleanProperty(false);
+
+    // maximum rank error of the approximate percentiles as a fraction of the number of values
+    private double approximateStatisticsRankError = DEFAULT_APPROXIMATE_STATISTICS_RANK_ERROR;
+
+    // boolean property controls whether selection changes evaluate the query on a worker thread
+    private BooleanProperty asynchronousQueries = new SimpleBooleanProperty(false);
+
+    // worker thread of the asynchronous query evaluations (created on first use) and the executor that
+    // publishes their results (the FX thread by default)
+    private ExecutorService queryEvaluationExecutor;
+    private Executor queryResultExecutor = Platform::runLater;
+    // the latest submitted asynchronous evaluation (null once it is published) and the selections whose
+    // change notifications wait for it
+    private Object latestQueryEvaluation;
+    private LinkedHashSet<ColumnSelection> changedSelections = new LinkedHashSet<>();
+
+    // results of recently evaluated selection states (bounded by their estimated memory)
+    private QueryResultCache queryResultCache = new QueryResultCache(DEFAULT_QUERY_RESULT_CACHE_SIZE);
+    // version of the latest query result (shared by all queries, so a view can tell the results of a new active query apart)
+    private long queryResultVersion = 0;
+
     public DataTable() {
-        tuples = new ArrayList<>();
         columns = new ArrayList<>();
-        disabledColumnTuples = new ArrayList<>();
         disabledColumns = new ArrayList<>();
 
         activeQuery = new Query("Q1", this);
@@ -77,32 +138,58 @@ public class DataTable {
 
     public Set<Tuple> getFocusTuples() { return focusTuples; }
 
-    private void setContextTuples() {
-        focusTuples.clear();
-        contextTuples.clear();
+    public BitSet getContextRows() { return contextRows; }
+
+    public BitSet getFocusRows() { return focusRows; }
 
+    private void setContextTuples() {
         for (Column column : columns) {
-            column.getFocusTuples().clear();
-            column.getLowerContextTuples().clear();
-            column.getUpperContextTuples().clear();
+            setColumnFocusContext(column);
         }
+        combineColumnFocusContext();
+    }
 
-        for (Tuple tuple : tuples) {
-            boolean isContext = false;
-            for (int i = 0; i < tuple.getElementCount(); i++) {
-                if (!columns.get(i).setFocusContext(tuple, i)) {
-                    isContext = true;
-                }
-            }
+    // reclassifies only the rows of the given column (e.g., after its focus extents change)
+    private void setContextTuples(Column column) {
+        setColumnFocusContext(column);
+        combineColumnFocusContext();
+    }
 
-            if (isContext) {
-                contextTuples.add(tuple);
+    // classifies only the rows from fromRow on (e.g., appended rows); the focus extents did not change
+    private void appendContextTuples(int fromRow) {
+        for (int row = fromRow; row < tupleCount; row++) {
+            boolean inFocus = true;
+            for (Column column : columns) {
+                inFocus &= column.setFocusContext(row);
+            }
+            if (inFocus) {
+                focusRows.set(row);
             } else {
-                focusTuples.add(tuple);
+                contextRows.set(row);
             }
         }
     }
 
+    private void setColumnFocusContext(Column column) {
+        column.clearFocusContext();
+        for (int row = 0; row < tupleCount; row++) {
+            column.setFocusContext(row);
+        }
+    }
+
+    // a row is in context if it is in the lower or upper context of any column; otherwise it is in focus
+    private void combineColumnFocusContext() {
+        contextRows.clear();
+        for (Column column : columns) {
+            contextRows.or(column.getLowerContextRows());
+            contextRows.or(column.getUpperContextRows());
+        }
+
+        focusRows.clear();
+        focusRows.set(0, tupleCount);
+        focusRows.andNot(contextRows);
+    }
+
 //	public DataTable getDuplicate() {
 //		DataTable newDataTable = new DataTable();
 //		ArrayList<Column> newColumns = new ArrayList<>();
@@ -146,6 +233,82 @@ public class DataTable {
         fireDataTableStatisticsChanged();
     }
 
+    public boolean getApproximateStatistics() {
+        return approximateStatistics.get();
+    }
+
+    public void setApproximateStatistics(boolean enabled) {
+        if (enabled != getApproximateStatistics()) {
+            approximateStatistics.set(enabled);
+            calculateStatistics();
+            getActiveQuery().calculateStatistics();
+            fireDataTableStatisticsChanged();
+        }
+    }
+
+    public BooleanProperty approximateStatisticsProperty() {
+        return approximateStatistics;
+    }
+
+    public boolean getAsynchronousQueries() {
+        return asynchronousQueries.get();
+    }
+
+    // when enabled, the query of a selection change (e.g., while a selection is brushed) is evaluated on a
+    // worker thread; a newer selection change supersedes the evaluation of an older one, and only the
+    // result of the latest evaluation is published, followed by the selection changed notifications
+    public void setAsynchronousQueries(boolean enabled) {
+        asynchronousQueries.set(enabled);
+    }
+
+    public BooleanProperty asynchronousQueriesProperty() {
+        return asynchronousQueries;
+    }
+
+    // the executor that publishes the results of asynchronous query evaluations (Platform::runLater by default)
+    public void setQueryResultExecutor(Executor queryResultExecutor) {
+        this.queryResultExecutor = queryResultExecutor;
+    }
+
+    // the estimated memory (in bytes) of query results that are kept for selection states that are evaluated
+    // again (e.g., when toggling between brushes or undoing a selection change); 0 disables the cache
+    public long getQueryResultCacheSize() {
+        return queryResultCache.getCapacity();
+    }
+
+    public void setQueryResultCacheSize(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Query result cache size must not be negative");
+        }
+        queryResultCache.setCapacity(size);
+    }
+
+    QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    long nextQueryResultVersion() {
+        return ++queryResultVersion;
+    }
+
+    public double getApproximateStatisticsRankError() {
+        return approximateStatisticsRankError;
+    }
+
+    public void setApproximateStatisticsRankError(double rankError) {
+        if (rankError <= 0. || rankError >= 1.) {
+            throw new IllegalArgumentException("Approximate statistics rank error must be between 0 and 1");
+        }
+        if (rankError != approximateStatisticsRankError) {
+            approximateStatisticsRankError = rankError;
+            if (getApproximateStatistics()) {
+                calculateStatistics();
+                getActiveQuery().calculateStatistics();
+                fireDataTableStatisticsChanged();
+            }
+        }
+    }
+
     public int getNumHistogramBins() {
         return numHistogramBins;
     }
@@ -159,12 +322,51 @@ public class DataTable {
                 }
             }
 
+            // the saved query bins are counted for the new bin count when they are read
             activeQuery.setNumHistogramBins(numHistogramBins);
 
             fireNumHistogramBinsChanged();
         }
     }
 
+    public CorrelationMatrix getCorrelationMatrix() {
+        if (correlationMatrix == null) {
+            correlationMatrix = new CorrelationMatrix(getCorrelationSums(), null, tupleCount);
+        }
+        return correlationMatrix;
+    }
+
+    // 2D histogram of the two numeric or temporal columns over all rows with the current number of
+    // histogram bins (null if either column has no histogram bins)
+    public Histogram2D getHistogram2D(Column xColumn, Column yColumn) {
+        return Histogram2D.getCached(histogram2DMap, xColumn, yColumn, null, tupleCount, numHistogramBins);
+    }
+
+    // the sums are rebuilt if the set of double columns changed since they were computed (a new column
+    // order keeps them and a disabled column is dropped from them)
+    CorrelationSums getCorrelationSums() {
+        List<DoubleColumn> correlationColumns = getCorrelationColumns();
+        if (correlationSums != null && !correlationSums.hasColumns(correlationColumns) &&
+                correlationSums.containsColumns(correlationColumns)) {
+            correlationSums = correlationSums.select(correlationColumns);
+        }
+        if (correlationSums == null || !correlationSums.hasColumns(correlationColumns)) {
+            correlationSums = CorrelationSums.compute(correlationColumns, null, tupleCount, null);
+        }
+        return correlationSums;
+    }
+
+    // the (enabled) double columns included in the correlation matrices
+    List<DoubleColumn> getCorrelationColumns() {
+        ArrayList<DoubleColumn> correlationColumns = new ArrayList<>();
+        for (Column column : columns) {
+            if (column instanceof DoubleColumn) {
+                correlationColumns.add((DoubleColumn)column);
+            }
+        }
+        return correlationColumns;
+    }
+
     public ArrayList<DoubleColumn> getEnabledDoubleColumns() {
         ArrayList<DoubleColumn> doubleColumns = new ArrayList<>();
         for (Column column : columns) {
@@ -259,7 +461,7 @@ public class DataTable {
 //    public int getMaxHistogram2DBinCount() { return maxHistogram2DBinCount; }
 
     public boolean isEmpty() {
-        return tuples.isEmpty();
+        return tupleCount == 0;
     }
 
     public Column getHighlightedColumn() {
@@ -280,16 +482,24 @@ public class DataTable {
         }
     }
 
-    public void setData(ArrayList<Tuple> tuples, ArrayList<Column> columns) {
+    // Sets the columns of the table; the columns must already hold the same number of values
+    public void setData(ArrayList<Column> columns) {
         clearDataModel();
 
         if (columns.isEmpty()) {
             return;
         }
 
-        if (tuples != null && !tuples.isEmpty()) {
-            this.tuples.addAll(tuples);
-            numHistogramBins = (int)Math.floor(Math.sqrt(tuples.size()));
+        tupleCount = columns.get(0).getSize();
+        for (Column column : columns) {
+            if (column.getSize() != tupleCount) {
+                throw new IllegalArgumentException("Column '" + column.getName() + "' has " + column.getSize() +
+                        " values but " + tupleCount + " were expected");
+            }
+        }
+
+        if (tupleCount > 0) {
+            numHistogramBins = (int)Math.floor(Math.sqrt(tupleCount));
             if (numHistogramBins > MAX_NUM_HISTOGRAM_BINS) {
                 numHistogramBins = MAX_NUM_HISTOGRAM_BINS;
             }
@@ -306,12 +516,48 @@ public class DataTable {
         fireDataModelReset();
     }
 
-    public void addTuples(ArrayList<Tuple> newTuples) {
-        this.tuples.addAll(newTuples);
-        setContextTuples();
-        calculateStatistics();
+    // Appends new tuples; each array holds one value for each enabled column (in column order)
+    // followed by one value for each disabled column (in disabled column order). Only the new rows
+    // are classified, evaluated against the active query, and merged into the statistics.
+    public void addTuples(List<Object[]> newTupleValues) {
+        batch(() -> appendTuples(newTupleValues));
+    }
+
+    private void appendTuples(List<Object[]> newTupleValues) {
+        drainQueryEvaluation();
+        int firstNewRow = tupleCount;
+        for (Object values[] : newTupleValues) {
+            int valueIndex = 0;
+            for (Column column : columns) {
+                column.addValue(values[valueIndex++]);
+            }
+            for (Column column : disabledColumns) {
+                column.addValue(values[valueIndex++]);
+            }
+            tupleCount++;
+        }
+
+        if (firstNewRow == 0) {
+            setContextTuples();
+            calculateStatistics();
+            getActiveQuery().setQueriedTuples();
+            fireRowsAppended(firstNewRow, tupleCount);
+            return;
+        }
+
+        // only the new rows are added to the correlation sums
+        if (correlationSums != null) {
+            correlationSums.addRows(firstNewRow, tupleCount);
+            if (!correlationSums.isFinite()) {
+                correlationSums = null;
+            }
+        }
+
+        appendContextTuples(firstNewRow);
+        appendStatistics(firstNewRow);
+        getActiveQuery().appendRows(firstNewRow, tupleCount);
 
-        fireTuplesAdded(newTuples);
+        fireRowsAppended(firstNewRow, tupleCount);
     }
 
     public void clear() {
@@ -320,12 +566,19 @@ public class DataTable {
     }
 
     private void clearDataModel() {
-        tuples.clear();
-        disabledColumnTuples.clear();
+        drainQueryEvaluation();
+        tupleCount = 0;
+        correlationSums = null;
+        histogram2DMap.clear();
         activeQuery = new Query("Q" + (nextQueryNumber++), this);
+        savedQueryList.clear();
+        queryResultCache.clear();
+        latestQueryEvaluation = null;
+        changedSelections.clear();
 //		removeColumnSelectionsFromActiveQuery();
         columns.clear();
         disabledColumns.clear();
+        disabledColumnsWithStaleStatistics.clear();
         highlightedColumn = null;
     }
 
@@ -343,8 +596,21 @@ public class DataTable {
         return columns;
     }
 
-    public ArrayList<Tuple> getTuples() {
-        return tuples;
+    // Returns a read-only list view of the tuples; the tuples are created as they are accessed
+    public List<Tuple> getTuples() {
+        return new TupleList();
+    }
+
+    private class TupleList extends AbstractList<Tuple> implements RandomAccess {
+        @Override
+        public Tuple get(int index) {
+            return getTuple(index);
+        }
+
+        @Override
+        public int size() {
+            return tupleCount;
+        }
     }
 
     public Object[] getColumnValues(Column column) {
@@ -355,11 +621,10 @@ public class DataTable {
     public Object[] getColumnValues(int columnIndex) {
         Column column = columns.get(columnIndex);
 
-        Object[] values = new Object[tuples.size()];
+        Object[] values = new Object[tupleCount];
 
-        for (int ituple = 0; ituple < tuples.size(); ituple++) {
-            Tuple tuple = tuples.get(ituple);
-            values[ituple] = tuple.getElement(columnIndex);
+        for (int row = 0; row < tupleCount; row++) {
+            values[row] = column.getValue(row);
         }
 
         return values;
@@ -368,11 +633,12 @@ public class DataTable {
     public Object[] getColumnQueriedValues(int columnIndex) {
         Column column = columns.get(columnIndex);
 
-        Object[] values = new Object[getActiveQuery().getQueriedTuples().size()];
+        BitSet queriedRows = getActiveQuery().getQueriedRows();
+        Object[] values = new Object[getActiveQuery().getQueriedTupleCount()];
 
         int tupleCounter = 0;
-        for (Tuple tuple : getActiveQuery().getQueriedTuples()) {
-            values[tupleCounter++] = tuple.getElement(columnIndex);
+        for (int row = queriedRows.nextSetBit(0); row >= 0; row = queriedRows.nextSetBit(row + 1)) {
+            values[tupleCounter++] = column.getValue(row);
         }
 
         return values;
@@ -389,11 +655,10 @@ public class DataTable {
     }
 
     public Tuple getTuple(int idx) {
-        return tuples.get(idx);
-    }
-
-    public Tuple getDisabledTuple(int idx) {
-        return disabledColumnTuples.get(idx);
+        if (idx < 0 || idx >= tupleCount) {
+            throw new IndexOutOfBoundsException("Tuple index " + idx + " is out of range [0, " + tupleCount + ")");
+        }
+        return new Tuple(this, idx);
     }
 
     public Column getColumn(int idx) {
@@ -414,16 +679,17 @@ public class DataTable {
     }
 
     public int getTupleCount() {
-        return tuples.size();
+        return tupleCount;
     }
 
     public int getColumnCount() {
         return columns.size();
     }
 
+    // the column's values stay in the column store; only the statistics that depend on the set of enabled
+    // columns (the correlations) are updated, and the query is only reevaluated if the column had selections
     public void disableColumn(Column disabledColumn) {
         if (!disabledColumns.contains(disabledColumn)) {
-            removeTupleElementsForColumn(disabledColumn);
             disabledColumn.setEnabled(false);
 
             if (disabledColumn == this.highlightedColumn) {
@@ -434,19 +700,28 @@ public class DataTable {
             disabledColumns.add(disabledColumn);
             columns.remove(disabledColumn);
 
-            calculateStatistics();
+            updateCorrelations();
 
-            getActiveQuery().removeColumnSelections(disabledColumn);
-            getActiveQuery().setQueriedTuples();
+            ArrayList<ColumnSelection> removedSelections = getActiveQuery().removeColumnSelections(disabledColumn);
+            if (removedSelections != null && !removedSelections.isEmpty()) {
+                getActiveQuery().setQueriedTuples();
+            } else {
+                getActiveQuery().updateCorrelations();
+            }
 
             fireColumnDisabled(disabledColumn);
         }
     }
 
     public void disableColumns(ArrayList<Column> columns) {
+        // the cleared selections and the disabled columns are reported (and the query evaluated) once
+        batch(() -> disableColumnList(columns));
+    }
+
+    private void disableColumnList(ArrayList<Column> columns) {
+        boolean selectionsRemoved = false;
         for (Column column : columns) {
             if (!disabledColumns.contains(column)) {
-                removeTupleElementsForColumn(column);
                 column.setEnabled(false);
 
                 if (column == this.highlightedColumn) {
@@ -455,21 +730,32 @@ public class DataTable {
                 }
 
                 disabledColumns.add(column);
-                columns.remove(column);
-                removeColumnSelectionsFromActiveQuery(column);
+                this.columns.remove(column);
+                ArrayList<ColumnSelection> removedSelections = getActiveQuery().removeColumnSelections(column);
+                if (removedSelections != null && !removedSelections.isEmpty()) {
+                    selectionsRemoved = true;
+                }
             }
         }
 
-        calculateStatistics();
+        updateCorrelations();
+
+        // the query is reevaluated once for all of the columns
+        if (selectionsRemoved) {
+            evaluateQuery();
+        } else {
+            getActiveQuery().updateCorrelations();
+        }
+        for (Column column : columns) {
+            fireQueryColumnCleared(column);
+        }
 
         fireColumnsDisabled(columns);
     }
 
     private void fireBivariateColumnAdded(BivariateColumn bivariateColumn) {
-        int idx = columns.indexOf(bivariateColumn);
-        for (DataTableListener listener : listeners) {
-            listener.dataTableBivariateColumnAdded(this, bivariateColumn, idx);
-        }
+        fireEvent(listener -> listener.dataTableBivariateColumnAdded(this, bivariateColumn, columns.indexOf(bivariateColumn)),
+                DataTableChangeSet.BIVARIATE_COLUMN_ADDED, bivariateColumn);
     }
 
     public void addBivariateColumn(Column column1, Column column2, int columnIndex) {
@@ -479,19 +765,13 @@ public class DataTable {
 
         int idx = columnIndex < 0 ? 0 : columnIndex > columns.size() ? columns.size() : columnIndex;
 
-        int col1Index = columns.indexOf(column1);
-        int col2Index = columns.indexOf(column2);
-
-        // add bivariate pair to tuples
-        for (Tuple tuple : tuples) {
-            Object biValues[] = {tuple.getElement(col1Index), tuple.getElement(col2Index)};
-            tuple.addElement(idx, biValues);
-        }
-
         columns.add(idx, biColumn);
 
-        calculateStatistics();
-        getActiveQuery().calculateStatistics();
+        // the column reads the values of its source columns, so it has no statistics of its own to calculate;
+        // only the correlation lists gain an entry for the new column
+        biColumn.calculateStatistics();
+        updateCorrelations();
+        getActiveQuery().updateCorrelations();
 
         fireBivariateColumnAdded(biColumn);
     }
@@ -510,65 +790,70 @@ public class DataTable {
     }
 
     public void setDoubleColumnFocusExtents(DoubleColumn column, double minValue, double maxValue) {
-        column.setMinimumFocusValue(minValue);
-        column.setMaximumFocusValue(maxValue);
-
-        ArrayList<ColumnSelection> selectionRangesToRemove = new ArrayList<>();
-
-        List<ColumnSelection> columnSelections = getActiveQuery().getColumnSelections(column);
-        if (columnSelections != null) {
-            for (ColumnSelection columnSelection : columnSelections) {
-                DoubleColumnSelectionRange doubleColumnSelection = (DoubleColumnSelectionRange)columnSelection;
-                if (doubleColumnSelection.getMinValue() > column.getMaximumFocusValue() ||
-                        doubleColumnSelection.getMaxValue() < column.getMinimumFocusValue()) {
-                    selectionRangesToRemove.add(doubleColumnSelection);
-                } else if (doubleColumnSelection.getMaxValue() > column.getMaximumFocusValue()) {
-                    doubleColumnSelection.setMaxValue(column.getMaximumFocusValue());
-                } else if (doubleColumnSelection.getMinValue() < column.getMinimumFocusValue()) {
-                    doubleColumnSelection.setMinValue(column.getMinimumFocusValue());
+        // the selection changes and the new extents are reported (and the query evaluated) once
+        batch(() -> {
+            column.setMinimumFocusValue(minValue);
+            column.setMaximumFocusValue(maxValue);
+
+            ArrayList<ColumnSelection> selectionRangesToRemove = new ArrayList<>();
+
+            List<ColumnSelection> columnSelections = getActiveQuery().getColumnSelections(column);
+            if (columnSelections != null) {
+                for (ColumnSelection columnSelection : columnSelections) {
+                    DoubleColumnSelectionRange doubleColumnSelection = (DoubleColumnSelectionRange)columnSelection;
+                    if (doubleColumnSelection.getMinValue() > column.getMaximumFocusValue() ||
+                            doubleColumnSelection.getMaxValue() < column.getMinimumFocusValue()) {
+                        selectionRangesToRemove.add(doubleColumnSelection);
+                    } else if (doubleColumnSelection.getMaxValue() > column.getMaximumFocusValue()) {
+                        doubleColumnSelection.setMaxValue(column.getMaximumFocusValue());
+                    } else if (doubleColumnSelection.getMinValue() < column.getMinimumFocusValue()) {
+                        doubleColumnSelection.setMinValue(column.getMinimumFocusValue());
+                    }
                 }
             }
-        }
 
-        if (!selectionRangesToRemove.isEmpty()) {
-            getActiveQuery().removeColumnSelections(selectionRangesToRemove);
-            getActiveQuery().setQueriedTuples();
-            fireColumnSelectionsRemoved(selectionRangesToRemove);
-        }
+            if (!selectionRangesToRemove.isEmpty()) {
+                getActiveQuery().removeColumnSelections(selectionRangesToRemove);
+                evaluateQuery();
+                fireColumnSelectionsRemoved(selectionRangesToRemove);
+            }
 
-        setContextTuples();
-        fireDataTableColumnFocusExtentsChanged();
+            setContextTuples(column);
+            fireDataTableColumnFocusExtentsChanged();
+        });
     }
 
     public void setTemporalColumnFocusExtents(TemporalColumn column, Instant startInstant, Instant endInstant) {
-        column.setStartFocusValue(startInstant);
-        column.setEndFocusValue(endInstant);
-
-        ArrayList<ColumnSelection> selectionRangesToRemove = new ArrayList<>();
-
-        List<ColumnSelection> columnSelections = getActiveQuery().getColumnSelections(column);
-        if (columnSelections != null) {
-            for (ColumnSelection columnSelection : columnSelections) {
-                TemporalColumnSelectionRange temporalColumnSelection = (TemporalColumnSelectionRange)columnSelection;
-                if (temporalColumnSelection.getStartInstant().isAfter(column.getEndFocusValue()) ||
-                        temporalColumnSelection.getEndInstant().isBefore(column.getStartFocusValue())) {
-                    selectionRangesToRemove.add(temporalColumnSelection);
-                } else if (temporalColumnSelection.getEndInstant().isAfter(column.getEndFocusValue())) {
-                    temporalColumnSelection.setEndInstant(column.getEndFocusValue());
-                } else if (temporalColumnSelection.getStartInstant().isBefore(column.getStartFocusValue())) {
-                    temporalColumnSelection.setStartInstant(column.getStartFocusValue());
+        batch(() -> {
+            column.setStartFocusValue(startInstant);
+            column.setEndFocusValue(endInstant);
+
+            ArrayList<ColumnSelection> selectionRangesToRemove = new ArrayList<>();
+
+            List<ColumnSelection> columnSelections = getActiveQuery().getColumnSelections(column);
+            if (columnSelections != null) {
+                for (ColumnSelection columnSelection : columnSelections) {
+                    TemporalColumnSelectionRange temporalColumnSelection = (TemporalColumnSelectionRange)columnSelection;
+                    if (temporalColumnSelection.getStartInstant().isAfter(column.getEndFocusValue()) ||
+                            temporalColumnSelection.getEndInstant().isBefore(column.getStartFocusValue())) {
+                        selectionRangesToRemove.add(temporalColumnSelection);
+                    } else if (temporalColumnSelection.getEndInstant().isAfter(column.getEndFocusValue())) {
+                        temporalColumnSelection.setEndInstant(column.getEndFocusValue());
+                    } else if (temporalColumnSelection.getStartInstant().isBefore(column.getStartFocusValue())) {
+                        temporalColumnSelection.setStartInstant(column.getStartFocusValue());
+                    }
                 }
             }
-        }
 
-        if (!selectionRangesToRemove.isEmpty()) {
-            getActiveQuery().removeColumnSelections(selectionRangesToRemove);
-            getActiveQuery().setQueriedTuples();
-            fireColumnSelectionsRemoved(selectionRangesToRemove);
-        }
+            if (!selectionRangesToRemove.isEmpty()) {
+                getActiveQuery().removeColumnSelections(selectionRangesToRemove);
+                evaluateQuery();
+                fireColumnSelectionsRemoved(selectionRangesToRemove);
+            }
 
-        setContextTuples();
-        fireDataTableColumnFocusExtentsChanged();
+            setContextTuples(column);
+            fireDataTableColumnFocusExtentsChanged();
+        });
     }
 
     public void setTemporalColumnScaleExtents(ArrayList<TemporalColumn> columns, Instant startInstant, Instant endInstant) {
@@ -581,13 +866,19 @@ public class DataTable {
 
     public void enableColumn(Column column) {
         if (disabledColumns.contains(column)) {
-            // move elements from disable column tuples to active tuples list
-            addTupleElementsForDisabledColumn(column);
             disabledColumns.remove(column);
             column.setEnabled(true);
             columns.add(column);
-            calculateStatistics();
-            getActiveQuery().calculateStatistics();
+
+            // only the enabled column's statistics are calculated (if they are outdated), then the correlations
+            ColumnSummaryStats columnStats = column.getStatistics();
+            if (disabledColumnsWithStaleStatistics.remove(column) || columnStats == null ||
+                    (!(column instanceof ImageColumn) && columnStats.getNumHistogramBins() != numHistogramBins)) {
+                column.calculateStatistics();
+            }
+            updateCorrelations();
+            getActiveQuery().calculateStatistics(Collections.singletonList(column));
+            calculateSavedQueryStatistics(Collections.singletonList(column));
             // fireDataModelChanged();
             fireColumnEnabled(column);
         }
@@ -608,11 +899,28 @@ public class DataTable {
     }
 
     public int removeUnselectedTuples() {
+        int tuplesRemoved[] = {0};
+        batch(() -> tuplesRemoved[0] = removeTuplesByQuery(false));
+        return tuplesRemoved[0];
+    }
+
+    // removes the nonqueried (or the queried) rows of the active query; returns the number of removed rows
+    private int removeTuplesByQuery(boolean removeQueriedRows) {
         int tuplesRemoved = 0;
 
+        // the rows are removed by the current result of the query
+        if (drainQueryEvaluation()) {
+            getActiveQuery().setQueriedTuples();
+        }
+
         if (getActiveQuery().hasColumnSelections()) {
-            tuplesRemoved = getActiveQuery().getNonQueriedTuples().size();
-            removeTuples(getActiveQuery().getNonQueriedTuples(), getActiveQuery().getQueriedTuples());
+            if (removeQueriedRows) {
+                tuplesRemoved = getActiveQuery().getQueriedTupleCount();
+                removeTuples(getActiveQuery().getNonQueriedRows());
+            } else {
+                tuplesRemoved = getActiveQuery().getNonQueriedTupleCount();
+                removeTuples(getActiveQuery().getQueriedRows());
+            }
 //			tuplesRemoved = getActiveQuery().getNonQueriedTuples().size();
 //			tuples.clear();
 //			tuples.addAll(getActiveQuery().getQueriedTuples());
@@ -634,19 +942,26 @@ public class DataTable {
         return tuplesRemoved;
     }
 
-    private void removeTuples(Set<Tuple> tuplesToRemove, Set<Tuple> tuplesToKeep) {
-        tuples.clear();
-        tuples.addAll(tuplesToKeep);
-        getActiveQuery().clear();
+    private void removeTuples(BitSet rowsToKeep) {
+        // compact the values of all columns in place, in row order (categorical columns also drop unused
+        // categories)
         for (Column column : columns) {
-            if (column instanceof CategoricalColumn) {
-                ((CategoricalColumn)column).getCategories().clear();
-                int columnIndex = columns.indexOf(column);
-                for (Tuple tuple : tuples) {
-                    ((CategoricalColumn)column).addCategory((String)tuple.getElement(columnIndex));
-                }
-            }
+            column.retainRows(rowsToKeep);
         }
+        for (Column column : disabledColumns) {
+            column.retainRows(rowsToKeep);
+        }
+        tupleCount = rowsToKeep.get(0, tupleCount).cardinality();
+        correlationSums = null;
+        // the cached results are rows and values of the removed rows
+        queryResultCache.clear();
+        for (SavedQuery savedQuery : savedQueryList) {
+            savedQuery.retainRows(rowsToKeep);
+        }
+        // the focus/context bitsets are indexed by row so they must be rebuilt after compaction
+        setContextTuples();
+
+        getActiveQuery().clear();
         calculateStatistics();
         for (Column column : columns) {
             if (column instanceof DoubleColumn) {
@@ -661,44 +976,46 @@ public class DataTable {
     }
 
     public int removeSelectedTuples() {
-        int tuplesRemoved = 0;
+        int tuplesRemoved[] = {0};
+        batch(() -> tuplesRemoved[0] = removeTuplesByQuery(true));
+        return tuplesRemoved[0];
+    }
 
-        if (getActiveQuery().hasColumnSelections()) {
-            tuplesRemoved = getActiveQuery().getQueriedTuples().size();
-            removeTuples(getActiveQuery().getQueriedTuples(), getActiveQuery().getNonQueriedTuples());
-//			tuples.clear();
-//			tuples.addAll(getActiveQuery().getNonQueriedTuples());
-//			getActiveQuery().clear();
-//			for (Column column : columns) {
-//				if (column instanceof CategoricalColumn) {
-//					((CategoricalColumn)column).getCategories().clear();
-//					int columnIndex = columns.indexOf(column);
-//					for (Tuple tuple : tuples) {
-//						((CategoricalColumn)column).addCategory((String)tuple.getElement(columnIndex));
-//					}
-//				}
-//			}
-//			calculateStatistics();
-//			for (Column column : columns) {
-//				if (column instanceof DoubleColumn) {
-//					((DoubleColumn)column).setMinimumScaleValue(((DoubleColumn)column).getStatistics().getMinValue());
-//					((DoubleColumn)column).setMaximumScaleValue(((DoubleColumn)column).getStatistics().getMaxValue());
-//				} else if (column instanceof TemporalColumn) {
-//					((TemporalColumn)column).setStartScaleValue(((TemporalColumn)column).getStatistics().getStartInstant());
-//					((TemporalColumn)column).setEndScaleValue(((TemporalColumn)column).getStatistics().getEndInstant());
-//				}
-//			}
-//			getActiveQuery().setQueriedTuples();
-            fireTuplesRemoved(tuplesRemoved);
+    // saves the rows of the active query under its ID and starts a new active query without selections
+    public SavedQuery saveActiveQuery() {
+        SavedQuery savedQuery = new SavedQuery(activeQuery.getID(), (BitSet)activeQuery.getQueriedRows().clone());
+        batch(() -> {
+            addSavedQuery(savedQuery);
+            removeColumnSelectionsFromActiveQuery();
+        });
+        return savedQuery;
+    }
+
+    // saves the union, intersection, or difference of the rows of two saved queries as a new saved query
+    public SavedQuery combineSavedQueries(SavedQuery.SetOperation operation, String queryID1, String queryID2) {
+        SavedQuery savedQuery1 = getSavedQuery(queryID1);
+        SavedQuery savedQuery2 = getSavedQuery(queryID2);
+        if (savedQuery1 == null || savedQuery2 == null) {
+            throw new IllegalArgumentException("No saved query with ID '" + (savedQuery1 == null ? queryID1 : queryID2) + "'");
         }
+        SavedQuery savedQuery = savedQuery1.combine("Q" + (nextQueryNumber++), operation, savedQuery2);
+        addSavedQuery(savedQuery);
+        return savedQuery;
+    }
 
-        return tuplesRemoved;
+    private void addSavedQuery(SavedQuery savedQuery) {
+        savedQueryList.add(savedQuery);
+        calculateSavedQueryStatistics(Collections.singletonList(savedQuery), columns);
+        fireSavedQueriesChanged();
     }
 
-//	public void saveActiveQuery() {
-//		savedQueryList.add(activeQuery);
-//		activeQuery = new Query("Q"+(nextQueryNumber++));
-//	}
+    public boolean removeSavedQuery(String queryID) {
+        if (savedQueryList.removeIf(savedQuery -> savedQuery.getID().equals(queryID))) {
+            fireSavedQueriesChanged();
+            return true;
+        }
+        return false;
+    }
 
 //	public Query getActiveQuery() {
 //		return activeQuery;
@@ -715,8 +1032,10 @@ public class DataTable {
 //	}
 
     public void removeColumnSelectionsFromActiveQuery() {
-        activeQuery = new Query("Q" + (nextQueryNumber++), this);
-        fireQueryCleared();
+        batch(() -> {
+            activeQuery = new Query("Q" + (nextQueryNumber++), this);
+            fireQueryCleared();
+        });
     }
 
 //	private void clearAllQueryColumnSelections() {
@@ -725,29 +1044,44 @@ public class DataTable {
 
     public void removeColumnSelectionsFromActiveQuery(Column column) {
         if (activeQuery != null) {
-            getActiveQuery().removeColumnSelections(column);
-            getActiveQuery().setQueriedTuples();
-            fireQueryColumnCleared(column);
+            batch(() -> {
+                getActiveQuery().removeColumnSelections(column);
+                evaluateQuery();
+                fireQueryColumnCleared(column);
+            });
         }
     }
 
-//	public ArrayList<Query> getSavedQueryList() {
-//		return savedQueryList;
-//	}
+    public List<SavedQuery> getSavedQueryList() {
+        return Collections.unmodifiableList(savedQueryList);
+    }
 
-//	public Query getQueryByID(String ID) {
-//		if (activeQuery.getID().equals(ID)) {
-//			return activeQuery;
-//		} else {
-//			for (Query query : savedQueryList) {
-//				if (query.getID().equals(ID)) {
-//					return query;
-//				}
-//			}
-//		}
-//
-//		return null;
-//	}
+    public SavedQuery getSavedQuery(String queryID) {
+        for (SavedQuery savedQuery : savedQueryList) {
+            if (savedQuery.getID().equals(queryID)) {
+                return savedQuery;
+            }
+        }
+        return null;
+    }
+
+    // calculates the statistics of the saved queries for the columns with one pass over the rows per column
+    private void calculateSavedQueryStatistics(List<Column> columns) {
+        calculateSavedQueryStatistics(savedQueryList, columns);
+    }
+
+    private void calculateSavedQueryStatistics(List<SavedQuery> savedQueries, List<Column> columns) {
+        if (savedQueries.isEmpty()) {
+            return;
+        }
+        ArrayList<Supplier<Runnable>> statisticsTasks = new ArrayList<>();
+        for (Column column : columns) {
+            if (column instanceof DoubleColumn || column instanceof TemporalColumn || column instanceof CategoricalColumn) {
+                statisticsTasks.add(SavedQuery.statisticsTask(new ArrayList<>(savedQueries), column, tupleCount));
+            }
+        }
+        calculateStatistics(statisticsTasks);
+    }
 
     public void addColumnSelectionToActiveQuery(ColumnSelection newColumnSelectionRange) {
         getActiveQuery().addColumnSelection(newColumnSelectionRange);
@@ -756,21 +1090,18 @@ public class DataTable {
 
         if (newColumnSelectionRange instanceof DoubleColumnSelectionRange) {
             ((DoubleColumnSelectionRange)newColumnSelectionRange).rangeValuesProperty().addListener((observable, oldValue, newValue) -> {
-                getActiveQuery().setQueriedTuples();
-                fireColumnSelectionChanged(newColumnSelectionRange);
+                columnSelectionChanged(newColumnSelectionRange);
             });
         } else if (newColumnSelectionRange instanceof TemporalColumnSelectionRange) {
             ((TemporalColumnSelectionRange)newColumnSelectionRange).rangeInstantsProperty().addListener((observable, oldValue, newValue) -> {
-                getActiveQuery().setQueriedTuples();
-                fireColumnSelectionChanged(newColumnSelectionRange);
+                columnSelectionChanged(newColumnSelectionRange);
             });
         } else if (newColumnSelectionRange instanceof CategoricalColumnSelection) {
             ((CategoricalColumnSelection)newColumnSelectionRange).selectedCategoriesProperty().addListener((SetChangeListener<String>) change -> {
                 if (((CategoricalColumnSelection) newColumnSelectionRange).getSelectedCategories().isEmpty()) {
                     getActiveQuery().removeColumnSelection(newColumnSelectionRange);
                 }
-                getActiveQuery().setQueriedTuples();
-                fireColumnSelectionChanged(newColumnSelectionRange);
+                columnSelectionChanged(newColumnSelectionRange);
             });
 //            ((CategoricalColumnSelection)newColumnSelectionRange).selectedCategoriesProperty().addListener((observable, oldValue, newValue) -> {
 //                getActiveQuery().setQueriedTuples();
@@ -781,8 +1112,7 @@ public class DataTable {
                 if (((ImageColumnSelection)newColumnSelectionRange).getSelectedImagePairs().isEmpty()) {
                     getActiveQuery().removeColumnSelection(newColumnSelectionRange);
                 }
-                getActiveQuery().setQueriedTuples();
-                fireColumnSelectionChanged(newColumnSelectionRange);
+                columnSelectionChanged(newColumnSelectionRange);
             });
         }
     }
@@ -883,229 +1213,340 @@ public class DataTable {
     }
 
     public void changeColumnOrder(ArrayList<Column> newColumnOrder) {
-        // determine destination indices for new column order
-        int dstColumnIndices[] = new int[newColumnOrder.size()];
-        for (int i = 0; i < newColumnOrder.size(); i++) {
-            // find index of column in new column order
-            Column column = newColumnOrder.get(i);
-            dstColumnIndices[i] = columns.indexOf(column);
+        // the columns are stored by column, so a new order only replaces the column list; the statistics
+        // and correlation matrices are keyed by column and only the correlation lists are reordered
+        columns = newColumnOrder;
+
+        setCorrelationCoefficientLists();
+        getActiveQuery().setCorrelationCoefficientLists();
+
+        fireColumnOrderChanged();
+    }
+
+    private void calculateStatistics() {
+        long start = System.currentTimeMillis();
+        ArrayList<Supplier<Runnable>> statisticsTasks = new ArrayList<>();
+        for (Column column : columns) {
+            statisticsTasks.add(column::prepareStatistics);
         }
+        calculateStatistics(statisticsTasks);
 
-        // reset columns array
-        columns = newColumnOrder;
+        correlationMatrix = null;
+        histogram2DMap.clear();
+        setCorrelationCoefficientLists();
+        disabledColumnsWithStaleStatistics.addAll(disabledColumns);
+        calculateSavedQueryStatistics(columns);
 
-        // rearrange column correlation coefficients
-        for (int iColumn = 0; iColumn < columns.size(); iColumn++) {
-            Column column = columns.get(iColumn);
-            if (column instanceof DoubleColumn) {
-                List<Double> currentCoefList = ((DoubleColumnSummaryStats)column.getStatistics()).getCorrelationCoefficientList();
-                ArrayList<Double> newCoefList = new ArrayList<>();
-                for (int i = 0; i < currentCoefList.size(); i++) {
-                    newCoefList.add(currentCoefList.get(dstColumnIndices[i]));
-                }
-                ((DoubleColumnSummaryStats)column.getStatistics()).setCorrelationCoefficientList(newCoefList);
-            }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Calling column.calculateStatistics for all columns took " + elapsed + " ms");
+    }
+
+    // merges the rows from fromRow on (e.g., appended rows) into the column statistics
+    private void appendStatistics(int fromRow) {
+        ArrayList<Supplier<Runnable>> statisticsTasks = new ArrayList<>();
+        for (Column column : columns) {
+            statisticsTasks.add(() -> column.prepareAppendedStatistics(fromRow));
         }
+        calculateStatistics(statisticsTasks);
+
+        correlationMatrix = null;
+        histogram2DMap.clear();
+        setCorrelationCoefficientLists();
+        disabledColumnsWithStaleStatistics.addAll(disabledColumns);
+        // the column bins may have changed even though the saved queries have no appended rows
+        calculateSavedQueryStatistics(columns);
+    }
 
-        // move tuple elements to reflect new column order
-        for (int iTuple = 0; iTuple < tuples.size(); iTuple++) {
-            Tuple tuple = tuples.get(iTuple);
-            Object elements[] = tuple.getElementsAsArray();
-            tuple.removeAllElements();
+    // recomputes the correlation lists after the set of enabled columns changed (the correlation sums of a
+    // disabled column are dropped without a pass over the rows)
+    private void updateCorrelations() {
+        correlationMatrix = null;
+        setCorrelationCoefficientLists();
+    }
 
-            for (int iElement = 0; iElement < elements.length; iElement++) {
-                tuple.addElement(elements[dstColumnIndices[iElement]]);
+    // the correlation lists of the column statistics are rows of the shared correlation matrix, in column order
+    private void setCorrelationCoefficientLists() {
+        for (Column column : columns) {
+            if (column instanceof DoubleColumn) {
+                ((DoubleColumn)column).getStatistics().setCorrelationCoefficientList(getCorrelationMatrix().getCorrelations(column, columns));
             }
         }
+    }
+
+    // runs the statistics tasks (on the fork/join pool for large tables) and then publishes all of the
+    // results on the calling thread, in task order, once every task has finished
+    void calculateStatistics(List<Supplier<Runnable>> statisticsTasks) {
+        for (Runnable publishStep : prepareStatistics(statisticsTasks)) {
+            publishStep.run();
+        }
+    }
 
-        // move query statistics to reflect new column order
-		if (getActiveQuery().hasColumnSelections()) {
-            for (int iColumn = 0; iColumn < columns.size(); iColumn++) {
-                Column column = columns.get(iColumn);
-                if (column instanceof DoubleColumn) {
-                    DoubleColumnSummaryStats summaryStats = (DoubleColumnSummaryStats)getActiveQuery().getColumnQuerySummaryStats(column);
-                    List<Double> corrCoef = summaryStats.getCorrelationCoefficientList();
+    // runs the statistics tasks (on the fork/join pool for large tables) and returns their publish steps
+    List<Runnable> prepareStatistics(List<Supplier<Runnable>> statisticsTasks) {
+        Stream<Supplier<Runnable>> taskStream = tupleCount >= PARALLEL_STATISTICS_THRESHOLD ?
+                statisticsTasks.parallelStream() : statisticsTasks.stream();
+        return taskStream.map(Supplier::get).collect(Collectors.toList());
+    }
 
-//                            ArrayList < Double > corrCoef = summaryStats.getCorrelationCoefficients();
-                    ArrayList<Double> newCorrCoef = new ArrayList<Double>();
-                    for (int iCorrCoef = 0; iCorrCoef < corrCoef.size(); iCorrCoef++) {
-                        newCorrCoef.add(corrCoef.get(dstColumnIndices[iCorrCoef]));
+    // Runs the operations as one change: the listener notifications are deferred and delivered as one merged
+    // change set (see DataTableChangeSet and DataTableListener.dataTableChanged) when the outermost batch
+    // finishes, and the query is evaluated once for all of the selection changes in the batch (queried rows
+    // read inside the batch may be outdated)
+    public void batch(Runnable operations) {
+        if (batchDepth++ == 0) {
+            changeSet = new DataTableChangeSet(this);
+        }
+        try {
+            operations.run();
+        } finally {
+            if (--batchDepth == 0) {
+                DataTableChangeSet committedChangeSet = changeSet;
+                changeSet = null;
+                if (queryEvaluationPending) {
+                    queryEvaluationPending = false;
+                    getActiveQuery().setQueriedTuples();
+                }
+                if (!committedChangeSet.isEmpty()) {
+                    for (DataTableListener listener : listeners) {
+                        listener.dataTableChanged(this, committedChangeSet);
                     }
-                    summaryStats.setCorrelationCoefficientList(newCorrCoef);
-//                    summaryStats.setCorrelationCoefficients(newCorrCoef);
                 }
-//				ArrayList<Histogram2DOLD> histogram2DList = summaryStats.getHistogram2DList();
-//				ArrayList<Histogram2DOLD> newHistogram2DList = new ArrayList<>();
-//				for (int i = 0; i < histogram2DList.size(); i++) {
-//					newHistogram2DList.add(histogram2DList.get(dstColumnIndices[i]));
-//				}
-//				summaryStats.setHistogram2DList(newHistogram2DList);
             }
         }
-
-        fireColumnOrderChanged();
     }
 
-    // get index of column and remove all tuple elements at this index
-    // add the tuple elements to a list of disabledColumnTuples for later enabling
-    private void removeTupleElementsForColumn(Column column) {
-        int columnIndex = columns.indexOf(column);
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
 
-        for (int iTuple = 0; iTuple < tuples.size(); iTuple++) {
-            Tuple tuple = tuples.get(iTuple);
-            Object elementValue = tuple.getElement(columnIndex);
-            tuple.removeElement(columnIndex);
+    // evaluates the query after a selection changed, or once when the open batch finishes
+    private void evaluateQuery() {
+        if (changeSet != null) {
+            queryEvaluationPending = true;
+        } else {
+            getActiveQuery().setQueriedTuples();
+        }
+    }
 
-            if (disabledColumnTuples.size() != tuples.size()) {
-                Tuple disabledTuple = new Tuple(this);
-                disabledTuple.addElement(elementValue);
-                disabledColumnTuples.add(disabledTuple);
-            } else {
-                Tuple disabledTuple = disabledColumnTuples.get(iTuple);
-                disabledTuple.addElement(elementValue);
-            }
+    // evaluates the query after a selection changed and notifies the listeners; with asynchronous queries
+    // (and outside of a batch) the notification waits for the result of the asynchronous evaluation
+    private void columnSelectionChanged(ColumnSelection columnSelection) {
+        if (changeSet == null && getAsynchronousQueries()) {
+            changedSelections.add(columnSelection);
+            submitQueryEvaluation();
+        } else {
+            evaluateQuery();
+            fireColumnSelectionChanged(columnSelection);
         }
     }
 
-    private void addTupleElementsForDisabledColumn(Column column) {
-        int columnIndex = disabledColumns.indexOf(column);
-        if (columnIndex != -1) {
-            for (int iTuple = 0; iTuple < disabledColumnTuples.size(); iTuple++) {
-                Tuple disabledTuple = disabledColumnTuples.get(iTuple);
-                Object elementValue = disabledTuple.getElement(columnIndex);
-                disabledTuple.removeElement(columnIndex);
+    // starts an asynchronous evaluation of the active query that supersedes any evaluation in flight; a
+    // synchronous evaluation (e.g., after rows are added) also supersedes it, and the pending notifications
+    // are then delivered with the synchronously evaluated query
+    private void submitQueryEvaluation() {
+        Object queryEvaluation = new Object();
+        latestQueryEvaluation = queryEvaluation;
+        Query query = getActiveQuery();
+        Supplier<Runnable> evaluation = query.prepareAsynchronousEvaluation();
 
-                if (disabledColumnTuples.size() != tuples.size()) {
-                    Tuple tuple = new Tuple(this);
-                    tuple.addElement(elementValue);
-                    tuples.add(tuple);
-                } else {
-                    Tuple tuple = tuples.get(iTuple);
-                    tuple.addElement(elementValue);
-                }
-            }
+        if (queryEvaluationExecutor == null) {
+            queryEvaluationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "DataTable query evaluation");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        queryEvaluationExecutor.execute(() -> {
+            Runnable evaluatedPublishStep;
+            try {
+                evaluatedPublishStep = evaluation.get();
+            } catch (RuntimeException e) {
+                // e.g., the rows changed under the evaluation; the query is evaluated on the result thread instead
+                log.log(Level.WARNING, "Asynchronous query evaluation failed", e);
+                evaluatedPublishStep = query::setQueriedTuples;
+            }
+            Runnable publishStep = evaluatedPublishStep;
+            queryResultExecutor.execute(() -> {
+                if (latestQueryEvaluation != queryEvaluation) {
+                    return;
+                }
+                latestQueryEvaluation = null;
+                if (publishStep != null) {
+                    publishStep.run();
+                }
+                ArrayList<ColumnSelection> selections = new ArrayList<>(changedSelections);
+                changedSelections.clear();
+                for (ColumnSelection columnSelection : selections) {
+                    fireColumnSelectionChanged(columnSelection);
+                }
+            });
+        });
     }
 
-    private void calculateStatistics() {
-        long start = System.currentTimeMillis();
-        for (Column column : columns) {
-            column.calculateStatistics();
+    // supersedes the asynchronous evaluation in flight and waits until the worker is idle, so the worker never
+    // reads the column values while rows are appended, removed, or replaced; returns true if an evaluation was
+    // superseded (its notifications are still delivered, with the query as it is evaluated next)
+    private boolean drainQueryEvaluation() {
+        if (latestQueryEvaluation == null) {
+            return false;
         }
-
-        long elapsed = System.currentTimeMillis() - start;
-        log.info("Calling column.calculateStatistics for all columns took " + elapsed + " ms");
+        getActiveQuery().supersedeAsynchronousEvaluation();
+        try {
+            queryEvaluationExecutor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.log(Level.WARNING, "Waiting for the asynchronous query evaluation failed", e);
+        }
+        return true;
     }
 
-    public void fireNumHistogramBinsChanged() {
+    // delivers the notification to the listeners, or merges it (by key) into the change set of the open batch
+    private void fireEvent(Consumer<DataTableListener> event, Object... key) {
+        if (changeSet != null) {
+            changeSet.add(event, key);
+            return;
+        }
         for (DataTableListener listener : listeners) {
-            listener.dataTableNumHistogramBinsChanged(this);
+            event.accept(listener);
         }
     }
 
+    public void fireNumHistogramBinsChanged() {
+        fireEvent(listener -> listener.dataTableNumHistogramBinsChanged(this), DataTableChangeSet.NUM_HISTOGRAM_BINS_CHANGED);
+    }
+
     private void fireColumnDisabled(Column column) {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnDisabled(this, column);
-        }
+        fireEvent(listener -> listener.dataTableColumnDisabled(this, column), DataTableChangeSet.COLUMN_DISABLED, column);
     }
 
     private void fireColumnsDisabled(ArrayList<Column> disabledColumns) {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnsDisabled(this, disabledColumns);
-        }
+        fireEvent(listener -> listener.dataTableColumnsDisabled(this, disabledColumns), DataTableChangeSet.COLUMNS_DISABLED, disabledColumns);
     }
 
     private void fireColumnEnabled(Column column) {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnEnabled(this, column);
-        }
+        fireEvent(listener -> listener.dataTableColumnEnabled(this, column), DataTableChangeSet.COLUMN_ENABLED, column);
     }
 
     private void fireDataTableColumnFocusExtentsChanged() {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnFocusExtentsChanged(this);
-        }
+        fireEvent(listener -> listener.dataTableColumnFocusExtentsChanged(this), DataTableChangeSet.COLUMN_FOCUS_EXTENTS_CHANGED);
     }
 
     private void fireDataTableColumnExtentsChanged() {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnExtentsChanged(this);
-        }
+        fireEvent(listener -> listener.dataTableColumnExtentsChanged(this), DataTableChangeSet.COLUMN_EXTENTS_CHANGED);
     }
 
     private void fireDataTableStatisticsChanged() {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableStatisticsChanged(this);
-        }
+        fireEvent(listener -> listener.dataTableStatisticsChanged(this), DataTableChangeSet.STATISTICS_CHANGED);
     }
 
     private void fireColumnOrderChanged() {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnOrderChanged(this);
-        }
+        fireEvent(listener -> listener.dataTableColumnOrderChanged(this), DataTableChangeSet.COLUMN_ORDER_CHANGED);
+    }
+
+    private void fireSavedQueriesChanged() {
+        fireEvent(listener -> listener.dataTableSavedQueriesChanged(this), DataTableChangeSet.SAVED_QUERIES_CHANGED);
     }
 
     private void fireColumnNameChanged(Column column) {
-        for (DataTableListener listener : listeners) {
-            listener.dataTableColumnNameChanged(this, column);
-        }
+        fireEvent(listener -> listener.dataTableColumnNameChanged(this, column), DataTableChangeSet.COLUMN_NAME_CHANGED, column);
     }
 
     private void fireDataModelReset() {
+        if (changeSet != null) {
+            changeSet.reset();
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableReset(this);
         }
     }
 
-    private void fireTuplesAdded(ArrayList<Tuple> newTuples) {
+    private void fireRowsAppended(int fromRow, int toRow) {
+        if (changeSet != null) {
+            changeSet.rowsAppended(fromRow, toRow);
+            return;
+        }
         for (DataTableListener listener : listeners) {
-            listener.dataTableTuplesAdded(this, newTuples);
+            listener.dataTableRowsAppended(this, fromRow, toRow);
         }
     }
 
     private void fireTuplesRemoved(int numTuplesRemoved) {
+        if (changeSet != null) {
+            changeSet.rowsRemoved(numTuplesRemoved);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableTuplesRemoved(this, numTuplesRemoved);
         }
     }
 
     public void fireHighlightedColumnChanged(Column oldHighlightedColumn) {
+        if (changeSet != null) {
+            changeSet.highlightedColumnChanged(oldHighlightedColumn);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableHighlightedColumnChanged(this, oldHighlightedColumn, highlightedColumn);
         }
     }
 
     public void fireColumnSelectionAdded(ColumnSelection columnSelectionRange) {
+        if (changeSet != null) {
+            changeSet.columnSelectionAdded(columnSelectionRange);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableColumnSelectionAdded(this, columnSelectionRange);
         }
     }
 
     public void fireColumnSelectionRemoved(ColumnSelection columnSelectionRange) {
+        if (changeSet != null) {
+            changeSet.columnSelectionRemoved(columnSelectionRange);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableColumnSelectionRemoved(this, columnSelectionRange);
         }
     }
 
     public void fireColumnSelectionsRemoved(List<ColumnSelection> columnSelections) {
+        if (changeSet != null) {
+            changeSet.columnSelectionsRemoved(columnSelections);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableColumnSelectionsRemoved(this, columnSelections);
         }
     }
 
     public void fireColumnSelectionChanged(ColumnSelection columnSelectionRange) {
+        if (changeSet != null) {
+            changeSet.columnSelectionChanged(columnSelectionRange);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableColumnSelectionChanged(this, columnSelectionRange);
         }
     }
 
     public void fireQueryCleared() {
+        if (changeSet != null) {
+            changeSet.queryCleared();
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableAllColumnSelectionsRemoved(this);
         }
     }
 
     public void fireQueryColumnCleared(Column column) {
+        if (changeSet != null) {
+            changeSet.queryColumnCleared(column);
+            return;
+        }
         for (DataTableListener listener : listeners) {
             listener.dataTableAllColumnSelectionsForColumnRemoved(this, column);
         }
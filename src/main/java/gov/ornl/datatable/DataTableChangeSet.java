@@ -0,0 +1,309 @@
+package gov.ornl.datatable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The listener notifications of a DataTable batch, merged into one change set that is delivered when
+ * the batch commits. A notification that is repeated is delivered once, at the position of its last
+ * occurrence; appended row ranges are joined and removed row counts are added; the changes of a
+ * selection that was added in the batch are covered by its added notification; a selection that was
+ * added and removed (or cleared) in the batch is not reported at all; and a reset (or rows that were
+ * both removed and appended) supersedes all of the other notifications.
+ *
+ * Listeners receive the change set in DataTableListener.dataTableChanged and can inspect it to rebuild
+ * (or redraw) once for the whole batch instead of once for each notification.
+ */
+public class DataTableChangeSet {
+    // names of the notifications the data table merges by key
+    final static String NUM_HISTOGRAM_BINS_CHANGED = "numHistogramBinsChanged";
+    final static String STATISTICS_CHANGED = "statisticsChanged";
+    final static String COLUMN_EXTENTS_CHANGED = "columnExtentsChanged";
+    final static String COLUMN_FOCUS_EXTENTS_CHANGED = "columnFocusExtentsChanged";
+    final static String COLUMN_DISABLED = "columnDisabled";
+    final static String COLUMNS_DISABLED = "columnsDisabled";
+    final static String COLUMN_ENABLED = "columnEnabled";
+    final static String BIVARIATE_COLUMN_ADDED = "bivariateColumnAdded";
+    final static String COLUMN_ORDER_CHANGED = "columnOrderChanged";
+    final static String COLUMN_NAME_CHANGED = "columnNameChanged";
+    final static String SAVED_QUERIES_CHANGED = "savedQueriesChanged";
+
+    private final static String ROWS_APPENDED = "rowsAppended";
+    private final static String ROWS_REMOVED = "rowsRemoved";
+    private final static String HIGHLIGHTED_COLUMN_CHANGED = "highlightedColumnChanged";
+    private final static String SELECTION_ADDED = "selectionAdded";
+    private final static String SELECTION_CHANGED = "selectionChanged";
+    private final static String SELECTION_REMOVED = "selectionRemoved";
+    private final static String SELECTIONS_REMOVED = "selectionsRemoved";
+    private final static String QUERY_CLEARED = "queryCleared";
+    private final static String QUERY_COLUMN_CLEARED = "queryColumnCleared";
+
+    private DataTable dataTable;
+    // notifications by key ([event name, arguments...]) in the order of their last occurrence
+    private LinkedHashMap<List<Object>, Consumer<DataTableListener>> events = new LinkedHashMap<>();
+    private boolean reset = false;
+
+    private int appendedFromRow = -1;
+    private int appendedToRow = -1;
+    private int removedRowCount = 0;
+    private Column oldHighlightedColumn;
+    // selections that were added in the batch and the selections of the pending selectionsRemoved notifications
+    private HashSet<ColumnSelection> addedSelections = new HashSet<>();
+    private ArrayList<ColumnSelection> removedSelections = new ArrayList<>();
+
+    DataTableChangeSet(DataTable dataTable) {
+        this.dataTable = dataTable;
+    }
+
+    void add(Consumer<DataTableListener> event, Object... key) {
+        List<Object> eventKey = Arrays.asList(key);
+        events.remove(eventKey);
+        events.put(eventKey, event);
+    }
+
+    void reset() {
+        reset = true;
+    }
+
+    void rowsAppended(int fromRow, int toRow) {
+        if (removedRowCount > 0 || (appendedToRow != -1 && appendedToRow != fromRow)) {
+            // the appended rows are not one range of the final rows
+            reset = true;
+            return;
+        }
+        if (appendedFromRow == -1) {
+            appendedFromRow = fromRow;
+        }
+        appendedToRow = toRow;
+        add(listener -> listener.dataTableRowsAppended(dataTable, appendedFromRow, appendedToRow), ROWS_APPENDED);
+    }
+
+    void rowsRemoved(int numRowsRemoved) {
+        if (appendedToRow != -1) {
+            // the appended rows moved when rows before them were removed
+            reset = true;
+            return;
+        }
+        removedRowCount += numRowsRemoved;
+        add(listener -> listener.dataTableTuplesRemoved(dataTable, removedRowCount), ROWS_REMOVED);
+    }
+
+    // the notification reports the first previous column and the column that is highlighted when the batch commits
+    void highlightedColumnChanged(Column oldHighlightedColumn) {
+        if (!events.containsKey(Arrays.asList(HIGHLIGHTED_COLUMN_CHANGED))) {
+            this.oldHighlightedColumn = oldHighlightedColumn;
+        }
+        add(listener -> {
+            if (this.oldHighlightedColumn != dataTable.getHighlightedColumn()) {
+                listener.dataTableHighlightedColumnChanged(dataTable, this.oldHighlightedColumn, dataTable.getHighlightedColumn());
+            }
+        }, HIGHLIGHTED_COLUMN_CHANGED);
+    }
+
+    void columnSelectionAdded(ColumnSelection columnSelection) {
+        addedSelections.add(columnSelection);
+        add(listener -> listener.dataTableColumnSelectionAdded(dataTable, columnSelection), SELECTION_ADDED, columnSelection);
+    }
+
+    void columnSelectionChanged(ColumnSelection columnSelection) {
+        if (!addedSelections.contains(columnSelection)) {
+            add(listener -> listener.dataTableColumnSelectionChanged(dataTable, columnSelection), SELECTION_CHANGED, columnSelection);
+        }
+    }
+
+    void columnSelectionRemoved(ColumnSelection columnSelection) {
+        if (dropSelection(columnSelection)) {
+            add(listener -> listener.dataTableColumnSelectionRemoved(dataTable, columnSelection), SELECTION_REMOVED, columnSelection);
+        }
+    }
+
+    void columnSelectionsRemoved(List<ColumnSelection> columnSelections) {
+        for (ColumnSelection columnSelection : columnSelections) {
+            if (dropSelection(columnSelection)) {
+                removedSelections.add(columnSelection);
+            }
+        }
+        if (!removedSelections.isEmpty()) {
+            add(listener -> listener.dataTableColumnSelectionsRemoved(dataTable, removedSelections), SELECTIONS_REMOVED);
+        }
+    }
+
+    void queryCleared() {
+        // the cleared query covers every pending selection notification
+        events.keySet().removeIf(key -> key.get(0) == SELECTION_ADDED || key.get(0) == SELECTION_CHANGED ||
+                key.get(0) == SELECTION_REMOVED || key.get(0) == SELECTIONS_REMOVED || key.get(0) == QUERY_COLUMN_CLEARED);
+        addedSelections.clear();
+        removedSelections.clear();
+        add(listener -> listener.dataTableAllColumnSelectionsRemoved(dataTable), QUERY_CLEARED);
+    }
+
+    void queryColumnCleared(Column column) {
+        // the cleared column covers the pending notifications of its selections
+        for (Iterator<List<Object>> iterator = events.keySet().iterator(); iterator.hasNext(); ) {
+            List<Object> key = iterator.next();
+            if ((key.get(0) == SELECTION_ADDED || key.get(0) == SELECTION_CHANGED || key.get(0) == SELECTION_REMOVED) &&
+                    ((ColumnSelection)key.get(1)).getColumn() == column) {
+                addedSelections.remove(key.get(1));
+                iterator.remove();
+            }
+        }
+        removedSelections.removeIf(columnSelection -> columnSelection.getColumn() == column);
+        if (removedSelections.isEmpty()) {
+            events.remove(Arrays.asList(SELECTIONS_REMOVED));
+        }
+        add(listener -> listener.dataTableAllColumnSelectionsForColumnRemoved(dataTable, column), QUERY_COLUMN_CLEARED, column);
+    }
+
+    // drops the pending notifications of a removed selection; returns false if the selection was added in
+    // the batch (so the listeners never saw it)
+    private boolean dropSelection(ColumnSelection columnSelection) {
+        events.remove(Arrays.asList(SELECTION_CHANGED, columnSelection));
+        if (addedSelections.remove(columnSelection)) {
+            events.remove(Arrays.asList(SELECTION_ADDED, columnSelection));
+            return false;
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return !reset && events.isEmpty();
+    }
+
+    // the merged notifications in delivery order
+    List<Consumer<DataTableListener>> getEvents() {
+        if (reset) {
+            return Arrays.asList(listener -> listener.dataTableReset(dataTable));
+        }
+        return new ArrayList<>(events.values());
+    }
+
+    // delivers the merged notifications to the listener one by one
+    public void replay(DataTableListener listener) {
+        for (Consumer<DataTableListener> event : getEvents()) {
+            event.accept(listener);
+        }
+    }
+
+    public DataTable getDataTable() {
+        return dataTable;
+    }
+
+    // true if the table was reset (the other changes are not reported)
+    public boolean isReset() {
+        return reset;
+    }
+
+    // true if selections were added, changed, or removed, or the query was cleared
+    public boolean hasQueryChanges() {
+        return hasEvent(SELECTION_ADDED, SELECTION_CHANGED, SELECTION_REMOVED, SELECTIONS_REMOVED, QUERY_CLEARED,
+                QUERY_COLUMN_CLEARED);
+    }
+
+    // true if all of the selections were removed (the selections added after that are in getAddedColumnSelections)
+    public boolean isQueryCleared() {
+        return hasEvent(QUERY_CLEARED);
+    }
+
+    // the columns whose selections were all removed
+    public Set<Column> getClearedColumns() {
+        LinkedHashSet<Column> clearedColumns = new LinkedHashSet<>();
+        for (List<Object> key : events.keySet()) {
+            if (key.get(0) == QUERY_COLUMN_CLEARED) {
+                clearedColumns.add((Column)key.get(1));
+            }
+        }
+        return clearedColumns;
+    }
+
+    // the selections that were removed (other than by clearing the query or a column)
+    public List<ColumnSelection> getRemovedColumnSelections() {
+        ArrayList<ColumnSelection> columnSelections = new ArrayList<>();
+        for (List<Object> key : events.keySet()) {
+            if (key.get(0) == SELECTION_REMOVED) {
+                columnSelections.add((ColumnSelection)key.get(1));
+            } else if (key.get(0) == SELECTIONS_REMOVED) {
+                columnSelections.addAll(removedSelections);
+            }
+        }
+        return columnSelections;
+    }
+
+    // the selections that were added (and are still in the query)
+    public List<ColumnSelection> getAddedColumnSelections() {
+        ArrayList<ColumnSelection> columnSelections = new ArrayList<>();
+        for (List<Object> key : events.keySet()) {
+            if (key.get(0) == SELECTION_ADDED) {
+                columnSelections.add((ColumnSelection)key.get(1));
+            }
+        }
+        return columnSelections;
+    }
+
+    // true if rows were appended or removed
+    public boolean hasRowChanges() {
+        return hasEvent(ROWS_APPENDED, ROWS_REMOVED);
+    }
+
+    // the first appended row, or -1 if no rows were appended
+    public int getAppendedFromRow() {
+        return hasEvent(ROWS_APPENDED) ? appendedFromRow : -1;
+    }
+
+    // the row after the last appended row, or -1 if no rows were appended
+    public int getAppendedToRow() {
+        return hasEvent(ROWS_APPENDED) ? appendedToRow : -1;
+    }
+
+    public int getRemovedRowCount() {
+        return hasEvent(ROWS_REMOVED) ? removedRowCount : 0;
+    }
+
+    // true if the highlighted column is not the column that was highlighted before the batch
+    public boolean hasHighlightedColumnChange() {
+        return hasEvent(HIGHLIGHTED_COLUMN_CHANGED) && oldHighlightedColumn != dataTable.getHighlightedColumn();
+    }
+
+    // true if columns were enabled, disabled, added, reordered, or renamed
+    public boolean hasColumnChanges() {
+        return hasEvent(COLUMN_DISABLED, COLUMNS_DISABLED, COLUMN_ENABLED, BIVARIATE_COLUMN_ADDED, COLUMN_ORDER_CHANGED,
+                COLUMN_NAME_CHANGED);
+    }
+
+    // true if the scale or focus extents of columns changed
+    public boolean hasExtentChanges() {
+        return hasEvent(COLUMN_EXTENTS_CHANGED, COLUMN_FOCUS_EXTENTS_CHANGED);
+    }
+
+    public boolean hasStatisticsChanges() {
+        return hasEvent(STATISTICS_CHANGED);
+    }
+
+    public boolean hasHistogramBinChanges() {
+        return hasEvent(NUM_HISTOGRAM_BINS_CHANGED);
+    }
+
+    public boolean hasSavedQueryChanges() {
+        return hasEvent(SAVED_QUERIES_CHANGED);
+    }
+
+    private boolean hasEvent(String... eventNames) {
+        if (reset) {
+            return false;
+        }
+        for (List<Object> key : events.keySet()) {
+            for (String eventName : eventNames) {
+                if (key.get(0).equals(eventName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -43,6 +43,16 @@ public interface DataTableListener {
     // Called when new tuples are added to the data table
     public void dataTableTuplesAdded(DataTable dataTable, ArrayList<Tuple> newTuples);
 
+    // Called when the rows in [fromRow, toRow) are appended to the data table; listeners that only need
+    // the appended range should override this instead of receiving a tuple for each new row
+    public default void dataTableRowsAppended(DataTable dataTable, int fromRow, int toRow) {
+        ArrayList<Tuple> newTuples = new ArrayList<>(toRow - fromRow);
+        for (int row = fromRow; row < toRow; row++) {
+            newTuples.add(dataTable.getTuple(row));
+        }
+        dataTableTuplesAdded(dataTable, newTuples);
+    }
+
     // Called when tuples are removed from the data table
     public void dataTableTuplesRemoved(DataTable dataTable, int numTuplesRemoved);
 
@@ -64,4 +74,13 @@ public interface DataTableListener {
 
     // Called when a column name changes
     public void dataTableColumnNameChanged(DataTable dataTable, Column column);
+
+    // Called when a query is saved, combined from saved queries, or removed from the saved queries
+    public default void dataTableSavedQueriesChanged(DataTable dataTable) { }
+
+    // Called once when a batch of changes (see DataTable.batch) finishes, with the merged notifications of the
+    // batch; listeners that rebuild on most notifications should override this to rebuild once per batch
+    public default void dataTableChanged(DataTable dataTable, DataTableChangeSet changeSet) {
+        changeSet.replay(this);
+    }
 }
@@ -5,10 +5,16 @@ import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 public class DoubleColumn extends Column {
+    private double values[] = new double[0];
+    // lazily built index of the rows sorted by value (used to evaluate range selections)
+    private SortedRowIndex sortedRowIndex;
+    // bin of each row for the most recent histogram range and bin count
+    private BinIndex binIndex;
     private DoubleColumnSummaryStats summaryStats;
     private DoubleProperty minimumScaleValue = new SimpleDoubleProperty(Double.NaN);
     private DoubleProperty maximumScaleValue = new SimpleDoubleProperty(Double.NaN);
@@ -19,39 +25,117 @@ public class DoubleColumn extends Column {
         super(name);
     }
 
-    public boolean setFocusContext(Tuple tuple, int elementIdx) {
-        if (((Double)tuple.getElement(elementIdx)) > getMaximumFocusValue()) {
-            getUpperContextTuples().add(tuple);
+    protected boolean setFocusContext(int row) {
+        double value = values[row];
+        if (value > getMaximumFocusValue()) {
+            setRowInUpperContext(row);
             return false;
-        } else if (((Double)tuple.getElement(elementIdx)) < getMinimumFocusValue()) {
-            getLowerContextTuples().add(tuple);
+        } else if (value < getMinimumFocusValue()) {
+            setRowInLowerContext(row);
             return false;
         }
-        getFocusTuples().add(tuple);
+        setRowInFocus(row);
         return true;
     }
 
-    public void calculateStatistics() {
-        if (summaryStats == null) {
-            summaryStats = new DoubleColumnSummaryStats(this, getDataTable().getNumHistogramBins(), null);
+    public double getDoubleValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void addValue(Object value) {
+        addValue((double)value);
+    }
+
+    protected void addValue(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, growCapacity(values.length, size + 1));
         }
-        summaryStats.setValues(getValues(), getDataTable().getNumHistogramBins());
+        values[size++] = value;
+        resetIndices();
+    }
 
-        if (Double.isNaN(getMinimumFocusValue())) {
-            setMinimumFocusValue(summaryStats.getMinValue());
+    @Override
+    protected void retainRows(BitSet rows) {
+        int newSize = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            values[newSize++] = values[row];
         }
+        size = newSize;
+        resetIndices();
+    }
 
-        if (Double.isNaN(getMaximumScaleValue())) {
-            setMaximumFocusValue(summaryStats.getMaxValue());
+    @Override
+    protected void clearValues() {
+        values = new double[0];
+        size = 0;
+        resetIndices();
+    }
+
+    // the index is shared by the column and query statistics, which may be calculated on different threads
+    synchronized BinIndex getBinIndex(double minValue, double maxValue, int numBins) {
+        if (binIndex == null || !binIndex.matches(minValue, maxValue, numBins, size)) {
+            binIndex = BinIndex.build(values, size, minValue, maxValue, numBins);
         }
+        return binIndex;
+    }
 
-        if (Double.isNaN(getMinimumScaleValue())) {
-            setMinimumScaleValue(summaryStats.getMinValue());
+    // the indices are reset under the lock of getBinIndex and getSortedRowIndex, so an index built from the
+    // previous rows is not kept
+    private synchronized void resetIndices() {
+        sortedRowIndex = null;
+        binIndex = null;
+    }
+
+    // the index is shared by the synchronous and the asynchronous query evaluations, which run on different threads
+    synchronized SortedRowIndex getSortedRowIndex() {
+        if (sortedRowIndex == null) {
+            sortedRowIndex = SortedRowIndex.build(values, size);
         }
+        return sortedRowIndex;
+    }
 
-        if (Double.isNaN(getMaximumScaleValue())) {
-            setMaximumScaleValue(summaryStats.getMaxValue());
+    protected Runnable prepareStatistics() {
+        if (summaryStats == null) {
+            summaryStats = new DoubleColumnSummaryStats(this, getDataTable().getNumHistogramBins(), null);
         }
+        return publishStatistics(summaryStats.prepareValues(getValues(), getAllRows(), getDataTable().getNumHistogramBins()));
+    }
+
+    @Override
+    protected Runnable prepareAppendedStatistics(int fromRow) {
+        if (summaryStats == null) {
+            return prepareStatistics();
+        }
+        return publishStatistics(summaryStats.prepareAppendedValues(Arrays.copyOfRange(values, fromRow, size), getAllRows()));
+    }
+
+    // publishes the summary statistics and initializes the focus and scale extents that are not set yet
+    private Runnable publishStatistics(Runnable publishSummaryStats) {
+        return () -> {
+            publishSummaryStats.run();
+
+            if (Double.isNaN(getMinimumFocusValue())) {
+                setMinimumFocusValue(summaryStats.getMinValue());
+            }
+
+            if (Double.isNaN(getMaximumScaleValue())) {
+                setMaximumFocusValue(summaryStats.getMaxValue());
+            }
+
+            if (Double.isNaN(getMinimumScaleValue())) {
+                setMinimumScaleValue(summaryStats.getMinValue());
+            }
+
+            if (Double.isNaN(getMaximumScaleValue())) {
+                setMaximumScaleValue(summaryStats.getMaxValue());
+            }
+        };
     }
 
     public double getMaximumFocusValue() { return maximumFocusValue.get(); }
@@ -89,78 +173,68 @@ public class DoubleColumn extends Column {
     public ReadOnlyDoubleProperty maximumScaleValueProperty() { return maximumScaleValue; }
 
     public double[] getValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-        if (columnIndex == -1) {
-            columnIndex = getDataTable().getDisabledColumns().indexOf(this);
-            double values[] = new double[getDataTable().getTupleCount()];
-            for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-                values[i] = (double) getDataTable().getDisabledTuple(i).getElement(columnIndex);
-            }
-
-            return values;
-        } else {
-            double values[] = new double[getDataTable().getTupleCount()];
-            for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-                values[i] = (double) getDataTable().getTuple(i).getElement(columnIndex);
-            }
+        return Arrays.copyOf(values, size);
+    }
 
-            return values;
-        }
+    // the column's value array without a copy (it may be longer than the number of rows and must not be modified)
+    double[] getValueArray() {
+        return values;
     }
 
     public double[] getFocusValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-        if (columnIndex == -1) {
-            columnIndex = getDataTable().getDisabledColumns().indexOf(this);
-
-        }
-
-        double values[] = new double[getFocusTuples().size()];
+        BitSet focusRows = getFocusRows();
+        double focusValues[] = new double[focusRows.cardinality()];
         int counter = 0;
-        for (Tuple focusTuple : getFocusTuples()) {
-            values[counter++] = (double)focusTuple.getElement(columnIndex);
+        for (int row = focusRows.nextSetBit(0); row >= 0; row = focusRows.nextSetBit(row + 1)) {
+            focusValues[counter++] = values[row];
         }
 
-        return values;
+        return focusValues;
     }
 
     public List<Double> getValuesAsList() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-
-        ArrayList<Double> valuesList = new ArrayList<>();
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            valuesList.add((double) getDataTable().getTuple(i).getElement(columnIndex));
+        ArrayList<Double> valuesList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            valuesList.add(values[i]);
         }
 
         return valuesList;
     }
 
     public double[] getQueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
+        Query query = getDataTable().getActiveQuery();
+        return getValues(query.getQueriedRows(), query.getQueriedTupleCount());
+    }
 
-        Set<Tuple> queriedTuples = getDataTable().getActiveQuery().getQueriedTuples();
-        double values[] = new double[queriedTuples.size()];
+    public double[] getNonqueriedValues() {
+        Query query = getDataTable().getActiveQuery();
+        return getValues(query.getNonQueriedRows(), query.getNonQueriedTupleCount());
+    }
 
+    // values of the rows in [fromRow, toRow) that are set in rows (e.g., the appended rows of a query)
+    double[] getValues(BitSet rows, int fromRow, int toRow) {
+        return getValues(values, rows, fromRow, toRow);
+    }
+
+    // values of the rows in [fromRow, toRow) of a value array (e.g., an array captured for a worker thread)
+    static double[] getValues(double values[], BitSet rows, int fromRow, int toRow) {
+        double rowValues[] = new double[rows.get(fromRow, toRow).cardinality()];
         int counter = 0;
-        for (Tuple tuple : queriedTuples) {
-            values[counter++] = (Double) tuple.getElement(columnIndex);
+        for (int row = rows.nextSetBit(fromRow); row >= 0 && row < toRow; row = rows.nextSetBit(row + 1)) {
+            rowValues[counter++] = values[row];
         }
-
-        return values;
+        return rowValues;
     }
 
-    public double[] getNonqueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-
-        Set<Tuple> nonqueriedTuples = getDataTable().getActiveQuery().getNonQueriedTuples();
-        double values[] = new double[nonqueriedTuples.size()];
+    private double[] getValues(BitSet rows, int rowCount) {
+        double rowValues[] = new double[rowCount];
 
         int counter = 0;
-        for (Tuple tuple : nonqueriedTuples) {
-            values[counter++] = (Double) tuple.getElement(columnIndex);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            rowValues[counter++] = values[row];
         }
 
-        return values;
+        return rowValues;
     }
 
     public DoubleColumnSummaryStats getStatistics() { return summaryStats; }
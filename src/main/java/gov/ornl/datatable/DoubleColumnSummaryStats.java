@@ -2,9 +2,9 @@ package gov.ornl.datatable;
 
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
-import org.apache.commons.math3.stat.correlation.PearsonsCorrelation;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -15,6 +15,17 @@ public class DoubleColumnSummaryStats extends ColumnSummaryStats {
     private final static Logger log = Logger.getLogger(DoubleColumnSummaryStats.class.getName());
 
     private double[] values;
+    // rows of the column the values were taken from (null if the values are not rows of the column)
+    private BitSet rows;
+    // the values in ascending order (null in approximate mode), kept so a new bin count is counted without a pass over the values
+    private double[] sortedValues;
+    // statistics and (in approximate mode) quantile sketch of the values, kept so appended values are merged in
+    private DoubleStatistics statistics;
+    private QuantileSketch sketch;
+    private double sketchRankError;
+    // (in approximate mode) block sketches of the query rows the sketch was merged from, kept so the next
+    // query only summarizes the blocks whose rows changed
+    private QuantileSketch.BlockSketches blockSketches;
 
     private DoubleProperty meanValue;
     private DoubleProperty minValue;
@@ -54,15 +65,22 @@ public class DoubleColumnSummaryStats extends ColumnSummaryStats {
     }
 
     public void setValues(double[] values, int numHistogramBins) {
+        prepareValues(values, null, numHistogramBins).run();
+    }
+
+    // the histogram of values taken from the given rows is counted from the column's bin index
+    protected Runnable prepareValues(double[] values, BitSet rows, int numHistogramBins) {
         this.values = values;
+        this.rows = rows;
 
         this.numHistogramBins = numHistogramBins;
 
-        calculateStatistics();
+        return prepareStatistics();
     }
 
     public void setValues(double[] values) {
         this.values = values;
+        rows = null;
 
 //        numHistogramBins = (int)Math.floor(Math.sqrt(values.length));
 //        if (numHistogramBins > MAX_NUM_HISTOGRAM_BINS) {
@@ -76,81 +94,152 @@ public class DoubleColumnSummaryStats extends ColumnSummaryStats {
         return values;
     }
 
+    // merges the statistics of values appended to the values (e.g., of rows appended to the table) with the
+    // statistics of the previous values, so only the appended values are summarized and sorted
+    protected Runnable prepareAppendedValues(double[] appendedValues, BitSet rows) {
+        DataTable dataTable = getColumn().getDataTable();
+        boolean approximate = dataTable != null && dataTable.getApproximateStatistics();
+        double[] previousValues = values == null ? new double[0] : values;
+        values = Arrays.copyOf(previousValues, previousValues.length + appendedValues.length);
+        System.arraycopy(appendedValues, 0, values, previousValues.length, appendedValues.length);
+        this.rows = rows;
+
+        if (statistics == null || approximate != (sketch != null) ||
+                (approximate && sketchRankError != dataTable.getApproximateStatisticsRankError())) {
+            return prepareStatistics();
+        }
+
+        if (approximate) {
+            statistics = DoubleStatistics.merge(statistics, DoubleStatistics.computeMoments(appendedValues));
+            // the sketch may be shared with a copy of these statistics
+            sketch = sketch.copy();
+            for (double value : appendedValues) {
+                sketch.update(value);
+            }
+        } else {
+            statistics = DoubleStatistics.merge(statistics, DoubleStatistics.compute(appendedValues));
+        }
+        return prepareStatistics(statistics, sketch, appendedValues);
+    }
+
     @Override
-    public void calculateStatistics() {
-        DescriptiveStatistics stats = new DescriptiveStatistics(values);
-
-        setMinValue(stats.getMin());
-        setMaxValue(stats.getMax());
-        setMeanValue(stats.getMean());
-        setMedianValue(stats.getPercentile(50));
-        setVarianceValue(stats.getVariance());
-        setStandardDeviationValue(stats.getStandardDeviation());
-        setPercentile25Value(stats.getPercentile(25));
-        setPercentile75Value(stats.getPercentile(75));
-        setSkewnessValue(stats.getSkewness());
-        setKurtosisValue(stats.getKurtosis());
-
-        // calculate whiskers for box plot 1.5 of IQR
-        double iqr_range = 1.5 * getIQR();
-        double lowerFence = getPercentile25Value() - iqr_range;
-        double upperFence = getPercentile75Value() + iqr_range;
+    protected Runnable prepareStatistics() {
+        // in approximate mode the percentiles and whiskers come from a quantile sketch instead of a sort
+        DataTable dataTable = getColumn().getDataTable();
+        if (dataTable != null && dataTable.getApproximateStatistics()) {
+            statistics = DoubleStatistics.computeMoments(values);
+            sketchRankError = dataTable.getApproximateStatisticsRankError();
+            if (query != null && rows != null) {
+                blockSketches = QuantileSketch.BlockSketches.build(values, rows, sketchRankError, blockSketches);
+                sketch = blockSketches.getSketch();
+            } else {
+                sketch = QuantileSketch.build(values, sketchRankError);
+            }
+        } else {
+            statistics = DoubleStatistics.compute(values);
+            sketch = null;
+            blockSketches = null;
+        }
+        return prepareStatistics(statistics, sketch, null);
+    }
+
+    // the histogram only counts the appended values (if any) when its bins did not change
+    private Runnable prepareStatistics(DoubleStatistics stats, QuantileSketch sketch, double[] appendedValues) {
+        sortedValues = stats.getSortedValues();
+
+        double min = stats.getMin();
+        double max = stats.getMax();
+        double mean = stats.getMean();
+        double median = sketch == null ? stats.getMedian() : sketch.getQuantile(.5);
+        double variance = stats.getVariance();
+        double standardDeviation = stats.getStandardDeviation();
+        double percentile25 = sketch == null ? stats.getPercentile25() : sketch.getQuantile(.25);
+        double percentile75 = sketch == null ? stats.getPercentile75() : sketch.getQuantile(.75);
+        double skewness = stats.getSkewness();
+        double kurtosis = stats.getKurtosis();
+
+        // calculate whiskers for box plot 1.5 of IQR (a whisker that is not found keeps its previous value)
+        double upperWhisker = Double.NaN;
+        double lowerWhisker = Double.NaN;
+        boolean upperWhiskerFound = false;
+        boolean lowerWhiskerFound = false;
+        double iqr_range = 1.5 * (percentile75 - percentile25);
+        double lowerFence = percentile25 - iqr_range;
+        double upperFence = percentile75 + iqr_range;
         double sorted_data[] = stats.getSortedValues();
 
         // find upper datum that is not greater than upper fence
-        if (upperFence >= getMaxValue()) {
-            setUpperWhiskerValue(getMaxValue());
+        if (upperFence >= max) {
+            upperWhisker = max;
+            upperWhiskerFound = true;
+        } else if (sketch != null) {
+            upperWhisker = sketch.getLargestValueAtMost(upperFence);
+            upperWhiskerFound = !Double.isNaN(upperWhisker);
         } else {
             // find largest datum not larger than upper fence value
             for (int i = sorted_data.length - 1; i >= 0; i--) {
                 if (sorted_data[i] <= upperFence) {
-                    setUpperWhiskerValue(sorted_data[i]);
+                    upperWhisker = sorted_data[i];
+                    upperWhiskerFound = true;
                     break;
                 }
             }
         }
 
-        if (lowerFence <= getMinValue()) {
-            setLowerWhiskerValue(getMinValue());
+        if (lowerFence <= min) {
+            lowerWhisker = min;
+            lowerWhiskerFound = true;
+        } else if (sketch != null) {
+            lowerWhisker = sketch.getSmallestValueAtLeast(lowerFence);
+            lowerWhiskerFound = !Double.isNaN(lowerWhisker);
         } else {
             // find smallest datum not less than lower fence value
             for (int i = 0; i < sorted_data.length; i++) {
                 if (sorted_data[i] >= lowerFence) {
-                    setLowerWhiskerValue(sorted_data[i]);
+                    lowerWhisker = sorted_data[i];
+                    lowerWhiskerFound = true;
                     break;
                 }
             }
         }
 
-        calculateHistogram();
-        calculateCorrelations();
-    }
-
-    private void calculateCorrelations() {
-        correlationCoefficientList.clear();
-        PearsonsCorrelation pCorr = new PearsonsCorrelation();
-
-        for (int icol = 0; icol < getColumn().getDataTable().getColumns().size(); icol++) {
-            Column otherColumn = getColumn().getDataTable().getColumn(icol);
-            double coefficient = Double.NaN;
-            if ((otherColumn == this.column) &&  (values.length > 1)) {
-                // no need to computer correlation with itself
-                coefficient = 1d;
-            } else if ((otherColumn instanceof DoubleColumn) && (values.length > 1)) {
-                if (query == null) {
-                    coefficient = pCorr.correlation(values, ((DoubleColumn) otherColumn).getValues());
-                } else {
-                    if (((DoubleColumn)otherColumn).getQueriedValues().length == values.length) {
-                        coefficient = pCorr.correlation(values, ((DoubleColumn) otherColumn).getQueriedValues());
-                    } else if (((DoubleColumn)otherColumn).getNonqueriedValues().length == values.length) {
-                        coefficient = pCorr.correlation(values, ((DoubleColumn) otherColumn).getNonqueriedValues());
-                    } else {
-                        coefficient = Double.NaN;
-                    }
-                }
-            }
-            correlationCoefficientList.add(coefficient);
+        // the column statistics bin over their own range, query statistics over the column range
+        double histogramMin = query == null ? min : doubleColumn().getStatistics().getMinValue();
+        double histogramMax = query == null ? max : doubleColumn().getStatistics().getMaxValue();
+        DoubleHistogram previousHistogram = getHistogram();
+        DoubleHistogram newHistogram;
+        if (appendedValues != null && previousHistogram != null && previousHistogram.getNumBins() == numHistogramBins &&
+                !Double.isNaN(histogramMin) && !Double.isNaN(histogramMax) &&
+                Double.compare(previousHistogram.getMinValue(), histogramMin) == 0 &&
+                Double.compare(previousHistogram.getMaxValue(), histogramMax) == 0) {
+            newHistogram = previousHistogram.append(values, appendedValues);
+        } else {
+            newHistogram = createHistogram(histogramMin, histogramMax);
         }
+
+        final double upperWhiskerValue = upperWhisker;
+        final double lowerWhiskerValue = lowerWhisker;
+        final boolean publishUpperWhisker = upperWhiskerFound;
+        final boolean publishLowerWhisker = lowerWhiskerFound;
+        return () -> {
+            setMinValue(min);
+            setMaxValue(max);
+            setMeanValue(mean);
+            setMedianValue(median);
+            setVarianceValue(variance);
+            setStandardDeviationValue(standardDeviation);
+            setPercentile25Value(percentile25);
+            setPercentile75Value(percentile75);
+            setSkewnessValue(skewness);
+            setKurtosisValue(kurtosis);
+            if (publishUpperWhisker) {
+                setUpperWhiskerValue(upperWhiskerValue);
+            }
+            if (publishLowerWhisker) {
+                setLowerWhiskerValue(lowerWhiskerValue);
+            }
+            setHistogram(newHistogram);
+        };
     }
 
     private DoubleColumn doubleColumn() {
@@ -159,11 +248,64 @@ public class DoubleColumnSummaryStats extends ColumnSummaryStats {
 
     @Override
     public void calculateHistogram() {
-        setHistogram(new DoubleHistogram(column.getName(), values, numHistogramBins,
-                doubleColumn().getStatistics().getMinValue(),
+        setHistogram(createHistogram(doubleColumn().getStatistics().getMinValue(),
                 doubleColumn().getStatistics().getMaxValue()));
     }
 
+    @Override
+    protected DoubleColumnSummaryStats copy() {
+        DoubleColumnSummaryStats copy = new DoubleColumnSummaryStats(column, numHistogramBins, query);
+        copy.values = values;
+        copy.rows = rows;
+        copy.sortedValues = sortedValues;
+        copy.statistics = statistics;
+        copy.sketch = sketch;
+        copy.sketchRankError = sketchRankError;
+        copy.blockSketches = blockSketches;
+        copy.setMinValue(getMinValue());
+        copy.setMaxValue(getMaxValue());
+        copy.setMeanValue(getMeanValue());
+        copy.setMedianValue(getMedianValue());
+        copy.setVarianceValue(getVarianceValue());
+        copy.setStandardDeviationValue(getStandardDeviationValue());
+        copy.setPercentile25Value(getPercentile25Value());
+        copy.setPercentile75Value(getPercentile75Value());
+        copy.setSkewnessValue(getSkewnessValue());
+        copy.setKurtosisValue(getKurtosisValue());
+        copy.setUpperWhiskerValue(getUpperWhiskerValue());
+        copy.setLowerWhiskerValue(getLowerWhiskerValue());
+        copy.setCorrelationCoefficientList(getCorrelationCoefficientList());
+        copy.setHistogram(getHistogram());
+        return copy;
+    }
+
+    @Override
+    long getEstimatedSize() {
+        long size = values == null ? 0 : 8L * values.length;
+        // the sorted values are the same array as the statistics' sorted values
+        size += sortedValues == null ? 0 : 8L * sortedValues.length;
+        size += blockSketches == null ? 0 : blockSketches.getEstimatedSize();
+        return size + 4L * numHistogramBins;
+    }
+
+    private DoubleHistogram createHistogram(double minValue, double maxValue) {
+        return createHistogram(minValue, maxValue, numHistogramBins);
+    }
+
+    // histogram of the values over any range and bin count (e.g., a focus range of the axis); this
+    // only costs a binary search per bin when the statistics kept their sorted values
+    public DoubleHistogram createHistogram(double minValue, double maxValue, int numBins) {
+        int binCounts[] = sortedValues == null ? null : DoubleHistogram.countSortedBins(sortedValues, numBins, minValue, maxValue);
+        if (binCounts != null) {
+            return new DoubleHistogram(column.getName(), values, numBins, minValue, maxValue, binCounts);
+        }
+        BinIndex binIndex = rows == null ? null : doubleColumn().getBinIndex(minValue, maxValue, numBins);
+        if (binIndex != null) {
+            return new DoubleHistogram(column.getName(), values, numBins, minValue, maxValue, binIndex.countBins(rows));
+        }
+        return new DoubleHistogram(column.getName(), values, numBins, minValue, maxValue);
+    }
+
     public DoubleHistogram getHistogram() {
         return histogramProperty().get();
     }
@@ -200,10 +342,7 @@ public class DoubleColumnSummaryStats extends ColumnSummaryStats {
     }
 
     public void setCorrelationCoefficientList(List<Double> newCorrelationCoefficientList) {
-        correlationCoefficientListProperty().clear();
-        for (double corrCoef : newCorrelationCoefficientList) {
-            correlationCoefficientListProperty().add(corrCoef);
-        }
+        correlationCoefficientListProperty().setAll(newCorrelationCoefficientList);
     }
 
     public DoubleProperty minValueProperty() {
@@ -1,6 +1,7 @@
 package gov.ornl.datatable;
 
 import java.util.Arrays;
+import java.util.function.DoublePredicate;
 
 /**
  * Created by csg on 1/5/16.
@@ -40,6 +41,83 @@ public class DoubleHistogram extends Histogram {
         calculateStatistics();
     }
 
+    // a histogram whose bins were already counted (e.g., from a column's bin index)
+    DoubleHistogram(String name, double values[], int numBins, double min, double max, int binCounts[]) {
+        super(name);
+
+        this.values = values;
+        this.numBins = numBins;
+        this.minValue = min;
+        this.maxValue = max;
+
+        binSize = (maxValue - minValue) / numBins;
+        this.binCounts = binCounts;
+        maxBinCount = 0;
+        for (int binCount : binCounts) {
+            if (binCount > maxBinCount) {
+                maxBinCount = binCount;
+            }
+        }
+    }
+
+    // counts the bins of values in ascending order (NaN values at the end) with a binary search per bin
+    // boundary instead of a pass over the values, so a new bin count or range costs O(bins log n); the
+    // bin of a value is monotone in the value so the counts are identical to binning each value.
+    // Returns null if the bins can not be searched (e.g., an empty or undefined range).
+    static int[] countSortedBins(double sortedValues[], int numBins, double minValue, double maxValue) {
+        double binSize = (maxValue - minValue) / numBins;
+        if (numBins <= 0 || !(binSize > 0.) || Double.isInfinite(binSize)) {
+            return null;
+        }
+
+        int searchableCount = sortedValues.length;
+        while (searchableCount > 0 && Double.isNaN(sortedValues[searchableCount - 1])) {
+            searchableCount--;
+        }
+
+        int binCounts[] = new int[numBins];
+        int binStart = firstIndex(sortedValues, 0, searchableCount, value -> (int)((value - minValue) / binSize) >= 0);
+        for (int i = 0; i < numBins; i++) {
+            final int nextBin = i + 1;
+            int binEnd = firstIndex(sortedValues, binStart, searchableCount, value -> (int)((value - minValue) / binSize) >= nextBin);
+            binCounts[i] = binEnd - binStart;
+            binStart = binEnd;
+        }
+
+        // values past the last bin that are equal to the max value go in the last bin
+        int maxStart = firstIndex(sortedValues, binStart, searchableCount, value -> value - maxValue >= -EPSILON);
+        int maxEnd = firstIndex(sortedValues, maxStart, searchableCount, value -> value - maxValue > EPSILON);
+        binCounts[numBins - 1] += maxEnd - maxStart;
+
+        // NaN values fall in the first bin
+        binCounts[0] += sortedValues.length - searchableCount;
+        return binCounts;
+    }
+
+    // first index in [from, to) whose value satisfies the predicate (which holds for all larger values)
+    private static int firstIndex(double sortedValues[], int from, int to, DoublePredicate predicate) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (predicate.test(sortedValues[mid])) {
+                to = mid;
+            } else {
+                from = mid + 1;
+            }
+        }
+        return from;
+    }
+
+    // the histogram over the same bins with appended values counted in (allValues includes the appended values),
+    // so only the appended values are binned
+    DoubleHistogram append(double allValues[], double appendedValues[]) {
+        DoubleHistogram appendedHistogram = new DoubleHistogram(getName(), appendedValues, numBins, minValue, maxValue);
+        int appendedBinCounts[] = binCounts.clone();
+        for (int i = 0; i < numBins; i++) {
+            appendedBinCounts[i] += appendedHistogram.binCounts[i];
+        }
+        return new DoubleHistogram(getName(), allValues, numBins, minValue, maxValue, appendedBinCounts);
+    }
+
     public int getBinCount(int i) {
         return binCounts[i];
     }
@@ -0,0 +1,268 @@
+package gov.ornl.datatable;
+
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of a double array computed with a few fused passes over the values and a
+ * single sort. The arithmetic follows commons-math's DescriptiveStatistics (bias corrected
+ * variance, corrected two-pass mean, legacy percentile estimation with NaN values removed) so
+ * the results are identical to it, without copying the values into a DescriptiveStatistics
+ * and sorting them once per percentile.
+ *
+ * The statistics of appended values are merged with the central moment update of Chan et al. and
+ * a merge of the sorted values, so appending rows does not recompute the moments of all values or
+ * sort them again (the merged moments equal a full computation up to rounding).
+ */
+class DoubleStatistics {
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double mean = Double.NaN;
+    private double variance = Double.NaN;
+    private double standardDeviation = Double.NaN;
+    private double skewness = Double.NaN;
+    private double kurtosis = Double.NaN;
+    private double percentile25 = Double.NaN;
+    private double median = Double.NaN;
+    private double percentile75 = Double.NaN;
+    // number of values (including NaN values) and the sums of the 2nd to 4th powers of the deviations from the mean
+    private long count = 0;
+    private double m2 = 0.;
+    private double m3 = 0.;
+    private double m4 = 0.;
+    // values in ascending order with NaN values at the end
+    private double sortedValues[];
+
+    private DoubleStatistics() { }
+
+    static DoubleStatistics compute(double values[]) {
+        DoubleStatistics statistics = computeMoments(values);
+        statistics.sortedValues = values.clone();
+        Arrays.sort(statistics.sortedValues);
+        statistics.calculatePercentiles();
+        return statistics;
+    }
+
+    // statistics of the values of both statistics (the sorted values are merged if both have them)
+    static DoubleStatistics merge(DoubleStatistics statistics1, DoubleStatistics statistics2) {
+        DoubleStatistics merged = new DoubleStatistics();
+        if (statistics1.count == 0 || statistics2.count == 0) {
+            DoubleStatistics source = statistics1.count == 0 ? statistics2 : statistics1;
+            merged.count = source.count;
+            merged.min = source.min;
+            merged.max = source.max;
+            merged.mean = source.mean;
+            merged.m2 = source.m2;
+            merged.m3 = source.m3;
+            merged.m4 = source.m4;
+        } else {
+            double n1 = statistics1.count;
+            double n2 = statistics2.count;
+            double n = n1 + n2;
+            double delta = statistics2.mean - statistics1.mean;
+            double delta2 = delta * delta;
+            merged.count = statistics1.count + statistics2.count;
+            merged.min = Double.isNaN(statistics1.min) ? statistics2.min :
+                    (Double.isNaN(statistics2.min) || statistics1.min < statistics2.min) ? statistics1.min : statistics2.min;
+            merged.max = Double.isNaN(statistics1.max) ? statistics2.max :
+                    (Double.isNaN(statistics2.max) || statistics1.max > statistics2.max) ? statistics1.max : statistics2.max;
+            merged.mean = statistics1.mean + delta * n2 / n;
+            merged.m2 = statistics1.m2 + statistics2.m2 + delta2 * n1 * n2 / n;
+            merged.m3 = statistics1.m3 + statistics2.m3 + delta * delta2 * n1 * n2 * (n1 - n2) / (n * n) +
+                    3. * delta * (n1 * statistics2.m2 - n2 * statistics1.m2) / n;
+            merged.m4 = statistics1.m4 + statistics2.m4 + delta2 * delta2 * n1 * n2 * (n1 * n1 - n1 * n2 + n2 * n2) / (n * n * n) +
+                    6. * delta2 * (n1 * n1 * statistics2.m2 + n2 * n2 * statistics1.m2) / (n * n) +
+                    4. * delta * (n1 * statistics2.m3 - n2 * statistics1.m3) / n;
+        }
+        merged.calculateHigherMoments();
+
+        if (statistics1.sortedValues != null && statistics2.sortedValues != null) {
+            merged.sortedValues = mergeSorted(statistics1.sortedValues, statistics2.sortedValues);
+            merged.calculatePercentiles();
+        }
+        return merged;
+    }
+
+    // merges two ascending arrays in the order of Arrays.sort (NaN values at the end)
+    private static double[] mergeSorted(double values1[], double values2[]) {
+        double merged[] = new double[values1.length + values2.length];
+        int i1 = 0;
+        int i2 = 0;
+        int i = 0;
+        while (i1 < values1.length && i2 < values2.length) {
+            merged[i++] = Double.compare(values1[i1], values2[i2]) <= 0 ? values1[i1++] : values2[i2++];
+        }
+        System.arraycopy(values1, i1, merged, i, values1.length - i1);
+        System.arraycopy(values2, i2, merged, i + values1.length - i1, values2.length - i2);
+        return merged;
+    }
+
+    // variance, standard deviation, skewness, and kurtosis from the count and central moment sums
+    private void calculateHigherMoments() {
+        if (count == 0) {
+            return;
+        }
+        if (count == 1) {
+            variance = 0.;
+            standardDeviation = 0.;
+            return;
+        }
+
+        double len = count;
+        variance = m2 / (len - 1.0);
+        standardDeviation = FastMath.sqrt(variance);
+        if (count > 2) {
+            skewness = (len / ((len - 1) * (len - 2))) * (m3 / (variance * FastMath.sqrt(variance)));
+        }
+        if (count > 3) {
+            double coefficientOne = (len * (len + 1)) / ((len - 1) * (len - 2) * (len - 3));
+            double termTwo = (3 * FastMath.pow(len - 1, 2.0)) / ((len - 2) * (len - 3));
+            kurtosis = (coefficientOne * (m4 / (variance * variance))) - termTwo;
+        }
+    }
+
+    private void calculatePercentiles() {
+        if (sortedValues.length > 0) {
+            percentile25 = percentile(25);
+            median = percentile(50);
+            percentile75 = percentile(75);
+        }
+    }
+
+    // computes the min, max, and moments only; the percentiles are NaN and there are no sorted values
+    static DoubleStatistics computeMoments(double values[]) {
+        DoubleStatistics statistics = new DoubleStatistics();
+        int n = values.length;
+        if (n == 0) {
+            return statistics;
+        }
+
+        // pass 1: sum, min, max, and the running first and second moments used by the kurtosis
+        double sum = 0.;
+        double min = values[0];
+        double max = values[0];
+        double runningMean = 0.;
+        double runningM2 = 0.;
+        for (int i = 0; i < n; i++) {
+            double value = values[i];
+            sum += value;
+            if (!Double.isNaN(value)) {
+                min = (min < value) ? min : value;
+                max = (max > value) ? max : value;
+            }
+            double dev = value - runningMean;
+            double nDev = dev / (i + 1);
+            runningMean += nDev;
+            runningM2 += ((double)(i + 1) - 1) * dev * nDev;
+        }
+        statistics.min = min;
+        statistics.max = max;
+
+        // pass 2: correction of the mean for the rounding error of the sum
+        double xbar = sum / n;
+        double correction = 0.;
+        for (int i = 0; i < n; i++) {
+            correction += values[i] - xbar;
+        }
+        double mean = xbar + (correction / n);
+        statistics.mean = mean;
+        statistics.count = n;
+
+        if (n == 1) {
+            statistics.variance = 0.;
+            statistics.standardDeviation = 0.;
+        } else {
+            // pass 3: central moments about the corrected mean, and the fourth moment about the running mean
+            double runningStandardDeviation = FastMath.sqrt(runningM2 / (n - 1d));
+            double accum = 0.;
+            double accum2 = 0.;
+            double accum3 = 0.;
+            double accum4 = 0.;
+            double accumMean4 = 0.;
+            for (int i = 0; i < n; i++) {
+                double dev = values[i] - mean;
+                double dev2 = dev * dev;
+                accum += dev2;
+                accum2 += dev;
+                accum3 += dev2 * dev;
+                accumMean4 += dev2 * dev2;
+                accum4 += FastMath.pow(values[i] - runningMean, 4.0);
+            }
+
+            double len = n;
+            statistics.m2 = accum - (accum2 * accum2 / len);
+            statistics.m3 = accum3;
+            statistics.m4 = accumMean4;
+            double variance = statistics.m2 / (len - 1.0);
+            statistics.variance = variance;
+            statistics.standardDeviation = FastMath.sqrt(variance);
+
+            if (n > 2) {
+                accum3 /= variance * FastMath.sqrt(variance);
+                statistics.skewness = (len / ((len - 1) * (len - 2))) * accum3;
+            }
+            if (n > 3) {
+                accum4 /= FastMath.pow(runningStandardDeviation, 4.0d);
+                double coefficientOne = (len * (len + 1)) / ((len - 1) * (len - 2) * (len - 3));
+                double termTwo = (3 * FastMath.pow(len - 1, 2.0)) / ((len - 2) * (len - 3));
+                statistics.kurtosis = (coefficientOne * accum4) - termTwo;
+            }
+        }
+
+        return statistics;
+    }
+
+    // legacy (p * (n + 1)) percentile estimate over the values that are not NaN
+    private double percentile(double quantile) {
+        if (sortedValues.length == 1) {
+            return sortedValues[0];
+        }
+
+        int length = sortedValues.length;
+        while (length > 0 && Double.isNaN(sortedValues[length - 1])) {
+            length--;
+        }
+        if (length == 0) {
+            return Double.NaN;
+        }
+
+        double p = quantile / 100;
+        double position = p * (length + 1);
+        double floorPosition = FastMath.floor(position);
+        int intPosition = (int)floorPosition;
+        double dif = position - floorPosition;
+        if (position < 1) {
+            return sortedValues[0];
+        }
+        if (position >= length) {
+            return sortedValues[length - 1];
+        }
+        double lower = sortedValues[intPosition - 1];
+        double upper = sortedValues[intPosition];
+        return lower + dif * (upper - lower);
+    }
+
+    double getMin() { return min; }
+
+    double getMax() { return max; }
+
+    double getMean() { return mean; }
+
+    double getVariance() { return variance; }
+
+    double getStandardDeviation() { return standardDeviation; }
+
+    double getSkewness() { return skewness; }
+
+    double getKurtosis() { return kurtosis; }
+
+    double getPercentile25() { return percentile25; }
+
+    double getMedian() { return median; }
+
+    double getPercentile75() { return percentile75; }
+
+    // the returned array is owned by the statistics and must not be modified (null for computeMoments)
+    double[] getSortedValues() { return sortedValues; }
+}
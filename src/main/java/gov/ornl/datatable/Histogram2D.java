@@ -0,0 +1,251 @@
+package gov.ornl.datatable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * A 2D histogram (grid of row counts) of a pair of numeric or temporal columns over a set of rows.
+ * The grid uses the same bins as the columns' 1D histograms and is counted from the columns' cached
+ * bin indices in a single pass over the rows, so a scatterplot can draw the density of the rows
+ * with a cost that depends on the number of bins instead of the number of rows. The bounds of a
+ * temporal column are epoch milliseconds.
+ */
+public class Histogram2D extends Histogram {
+    // row sets with at least this many rows are counted on the fork/join pool
+    private final static int PARALLEL_HISTOGRAM2D_THRESHOLD = 200000;
+    // number of rows counted per task
+    private final static int HISTOGRAM2D_CHUNK_SIZE = 65536;
+
+    private Column xColumn;
+    private Column yColumn;
+    private int numBins;
+    // counts by x bin then y bin: binCounts[xBin * numBins + yBin]
+    private int binCounts[];
+    private int maxBinCount;
+
+    private double xMinValue;
+    private double xMaxValue;
+    private double yMinValue;
+    private double yMaxValue;
+
+    // the bin indices the grid was counted from (the grid is outdated once a column has a new index)
+    private BinIndex xBinIndex;
+    private BinIndex yBinIndex;
+
+    private Histogram2D(Column xColumn, Column yColumn, BinIndex xBinIndex, BinIndex yBinIndex, int binCounts[]) {
+        super(xColumn.getName() + " x " + yColumn.getName());
+
+        this.xColumn = xColumn;
+        this.yColumn = yColumn;
+        this.xBinIndex = xBinIndex;
+        this.yBinIndex = yBinIndex;
+        numBins = xBinIndex.getNumBins();
+        xMinValue = xBinIndex.getLowerBound();
+        xMaxValue = xBinIndex.getUpperBound();
+        yMinValue = yBinIndex.getLowerBound();
+        yMaxValue = yBinIndex.getUpperBound();
+
+        this.binCounts = binCounts;
+        maxBinCount = 0;
+        for (int binCount : binCounts) {
+            if (binCount > maxBinCount) {
+                maxBinCount = binCount;
+            }
+        }
+    }
+
+    // counts the given rows (all rows if rows is null) of the two columns; returns null if either
+    // column has no bin index (e.g., a categorical column or a column without statistics)
+    static Histogram2D build(Column xColumn, Column yColumn, BitSet rows, int rowCount, int numBins) {
+        return prepareBuild(xColumn, yColumn, rows, rowCount, numBins).get();
+    }
+
+    // looks up the bin indices of the columns and returns the task that counts the rows; the task may run
+    // on another thread and reads the rows when it runs
+    static Supplier<Histogram2D> prepareBuild(Column xColumn, Column yColumn, BitSet rows, int rowCount, int numBins) {
+        BinIndex xBinIndex = getBinIndex(xColumn, numBins);
+        BinIndex yBinIndex = getBinIndex(yColumn, numBins);
+        if (xBinIndex == null || yBinIndex == null) {
+            return () -> null;
+        }
+
+        return () -> {
+            CountTask task = new CountTask(xBinIndex, yBinIndex, numBins, rows, 0, rowCount);
+            int binCounts[] = rowCount < PARALLEL_HISTOGRAM2D_THRESHOLD ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+            return new Histogram2D(xColumn, yColumn, xBinIndex, yBinIndex, binCounts);
+        };
+    }
+
+    // returns the cached grid of the column pair if it is current, else the transpose of the current grid of
+    // the swapped pair (e.g., after the axes of a bivariate column are swapped), else a newly counted grid
+    static Histogram2D getCached(Map<List<Column>, Histogram2D> histogram2DMap, Column xColumn, Column yColumn,
+                                 BitSet rows, int rowCount, int numBins) {
+        List<Column> columnPair = Arrays.asList(xColumn, yColumn);
+        Histogram2D histogram2D = histogram2DMap.get(columnPair);
+        if (histogram2D != null && histogram2D.isCurrent(numBins)) {
+            return histogram2D;
+        }
+
+        Histogram2D swappedHistogram2D = histogram2DMap.get(Arrays.asList(yColumn, xColumn));
+        if (swappedHistogram2D != null && swappedHistogram2D.isCurrent(numBins)) {
+            histogram2D = swappedHistogram2D.transpose();
+        } else {
+            histogram2D = build(xColumn, yColumn, rows, rowCount, numBins);
+        }
+        if (histogram2D == null) {
+            histogram2DMap.remove(columnPair);
+        } else {
+            histogram2DMap.put(columnPair, histogram2D);
+        }
+        return histogram2D;
+    }
+
+    // the bin index of the column over its histogram range (shared with the column's 1D histograms)
+    static BinIndex getBinIndex(Column column, int numBins) {
+        if (column instanceof DoubleColumn) {
+            DoubleColumn doubleColumn = (DoubleColumn)column;
+            DoubleColumnSummaryStats stats = doubleColumn.getStatistics();
+            return stats == null ? null : doubleColumn.getBinIndex(stats.getMinValue(), stats.getMaxValue(), numBins);
+        } else if (column instanceof TemporalColumn) {
+            TemporalColumn temporalColumn = (TemporalColumn)column;
+            TemporalColumnSummaryStats stats = temporalColumn.getStatistics();
+            return stats == null ? null : temporalColumn.getBinIndex(stats.getStartInstant(), stats.getEndInstant(), numBins);
+        }
+        return null;
+    }
+
+    // true if the grid was counted from the columns' current bin indices for the bin count
+    boolean isCurrent(int numBins) {
+        return getBinIndex(xColumn, numBins) == xBinIndex && getBinIndex(yColumn, numBins) == yBinIndex;
+    }
+
+    // the same grid with the x and y columns swapped
+    Histogram2D transpose() {
+        int transposed[] = new int[binCounts.length];
+        for (int xBin = 0; xBin < numBins; xBin++) {
+            for (int yBin = 0; yBin < numBins; yBin++) {
+                transposed[yBin * numBins + xBin] = binCounts[xBin * numBins + yBin];
+            }
+        }
+        return new Histogram2D(yColumn, xColumn, yBinIndex, xBinIndex, transposed);
+    }
+
+    // grid of the rows counted by this histogram but not by the other (which must count a subset of the rows)
+    Histogram2D subtract(Histogram2D other) {
+        int difference[] = new int[binCounts.length];
+        for (int i = 0; i < binCounts.length; i++) {
+            difference[i] = binCounts[i] - other.binCounts[i];
+        }
+        return new Histogram2D(xColumn, yColumn, xBinIndex, yBinIndex, difference);
+    }
+
+    public Column getXColumn() {
+        return xColumn;
+    }
+
+    public Column getYColumn() {
+        return yColumn;
+    }
+
+    public int getNumBins() {
+        return numBins;
+    }
+
+    public int getBinCount(int xBin, int yBin) {
+        return binCounts[xBin * numBins + yBin];
+    }
+
+    public int getMaxBinCount() {
+        return maxBinCount;
+    }
+
+    public double getXMinValue() {
+        return xMinValue;
+    }
+
+    public double getXMaxValue() {
+        return xMaxValue;
+    }
+
+    public double getYMinValue() {
+        return yMinValue;
+    }
+
+    public double getYMaxValue() {
+        return yMaxValue;
+    }
+
+    public double getXBinLowerBound(int xBin) {
+        return xMinValue + xBin * ((xMaxValue - xMinValue) / numBins);
+    }
+
+    public double getXBinUpperBound(int xBin) {
+        return getXBinLowerBound(xBin + 1);
+    }
+
+    public double getYBinLowerBound(int yBin) {
+        return yMinValue + yBin * ((yMaxValue - yMinValue) / numBins);
+    }
+
+    public double getYBinUpperBound(int yBin) {
+        return getYBinLowerBound(yBin + 1);
+    }
+
+    private static class CountTask extends RecursiveTask<int[]> {
+        private BinIndex xBinIndex;
+        private BinIndex yBinIndex;
+        private int numBins;
+        private BitSet rows;
+        private int fromRow;
+        private int toRow;
+
+        CountTask(BinIndex xBinIndex, BinIndex yBinIndex, int numBins, BitSet rows, int fromRow, int toRow) {
+            this.xBinIndex = xBinIndex;
+            this.yBinIndex = yBinIndex;
+            this.numBins = numBins;
+            this.rows = rows;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (toRow - fromRow > HISTOGRAM2D_CHUNK_SIZE && getPool() != null) {
+                int midRow = (fromRow + toRow) >>> 1;
+                CountTask lowerTask = new CountTask(xBinIndex, yBinIndex, numBins, rows, fromRow, midRow);
+                lowerTask.fork();
+                int binCounts[] = new CountTask(xBinIndex, yBinIndex, numBins, rows, midRow, toRow).compute();
+                int lowerBinCounts[] = lowerTask.join();
+                for (int i = 0; i < binCounts.length; i++) {
+                    binCounts[i] += lowerBinCounts[i];
+                }
+                return binCounts;
+            }
+
+            int binCounts[] = new int[numBins * numBins];
+            if (rows == null) {
+                for (int row = fromRow; row < toRow; row++) {
+                    countRow(binCounts, row);
+                }
+            } else {
+                for (int row = rows.nextSetBit(fromRow); row >= 0 && row < toRow; row = rows.nextSetBit(row + 1)) {
+                    countRow(binCounts, row);
+                }
+            }
+            return binCounts;
+        }
+
+        private void countRow(int binCounts[], int row) {
+            int xBin = xBinIndex.getBin(row);
+            int yBin = yBinIndex.getBin(row);
+            if (xBin >= 0 && yBin >= 0) {
+                binCounts[xBin * numBins + yBin]++;
+            }
+        }
+    }
+}
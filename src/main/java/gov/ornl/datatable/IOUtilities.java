@@ -283,8 +283,8 @@ public class IOUtilities {
                                DataTable dataTable) throws IOException {
         BufferedReader reader = new BufferedReader(new FileReader(f));
 
-        ArrayList<Tuple> tuples = new ArrayList<>();
         ArrayList<Column> columns = new ArrayList<>();
+        int tupleCount = 0;
 
         int temporalColumnIndices[] = null;
         if (temporalColumnNames != null && !temporalColumnNames.isEmpty()) {
@@ -391,7 +391,9 @@ public class IOUtilities {
                 continue;
             }
 
-            Tuple tuple = new Tuple(dataTable);
+            // values are parsed into a row buffer and only added to the columns if the whole line is valid
+            Object rowValues[] = new Object[columns.size()];
+            int valueCounter = 0;
             StringTokenizer st = new StringTokenizer(line);
 
             int tokenCounter = 0;
@@ -439,7 +441,11 @@ public class IOUtilities {
                     }
 
                     if (instant != null) {
-                        tuple.addElement(instant);
+                        if (valueCounter == rowValues.length) {
+                            valueCounter++;
+                            break;
+                        }
+                        rowValues[valueCounter++] = instant;
                         tokenCounter++;
                         continue;
                     }
@@ -452,14 +458,16 @@ public class IOUtilities {
                     for (int i = 0; i < categoricalColumnIndices.length; i++) {
                         if (tokenCounter == categoricalColumnIndices[i]) {
                             category = token.trim();
-//							((CategoricalColumn)columns.get(tokenCounter)).addCategory(category);
-                            ((CategoricalColumn)columns.get(tuple.getElementCount())).addCategory(category);
                             break;
                         }
                     }
 
                     if (category != null) {
-                        tuple.addElement(category);
+                        if (valueCounter == rowValues.length) {
+                            valueCounter++;
+                            break;
+                        }
+                        rowValues[valueCounter++] = category;
                         tokenCounter++;
                         continue;
                     }
@@ -472,8 +480,11 @@ public class IOUtilities {
 //					Object imageInfo[] = new Object[2];
 //					imageInfo[0] = imageFile;
 //					imageInfo[1] = image;
-//					tuple.addElement(imageInfo);
-                    tuple.addElement(imagePair);
+                    if (valueCounter == rowValues.length) {
+                        valueCounter++;
+                        break;
+                    }
+                    rowValues[valueCounter++] = imagePair;
                     tokenCounter++;
                     continue;
                 }
@@ -490,7 +501,11 @@ public class IOUtilities {
                         break;
                     }
                     // data attribute
-                    tuple.addElement(value);
+                    if (valueCounter == rowValues.length) {
+                        valueCounter++;
+                        break;
+                    }
+                    rowValues[valueCounter++] = value;
                     tokenCounter++;
                 } catch (NumberFormatException ex) {
                     System.out.println("DataSet.readCSV(): NumberFormatException caught so skipping record. "
@@ -501,16 +516,19 @@ public class IOUtilities {
                 }
             }
 
-            if (tuple.getElementCount() != columns.size()) {
+            if (valueCounter != columns.size()) {
                 log.info("Row ignored because it has "
-                        + (columns.size() - tuple.getElementCount())
+                        + (columns.size() - valueCounter)
                         + " column values missing.");
                 numLinesIgnored++;
                 skip_line = true;
             }
 
             if (!skip_line) {
-                tuples.add(tuple);
+                for (int i = 0; i < rowValues.length; i++) {
+                    columns.get(i).addValue(rowValues[i]);
+                }
+                tupleCount++;
             }
 
             lineCounter++;
@@ -519,10 +537,10 @@ public class IOUtilities {
 
         reader.close();
 
-        log.info("Finished reading CSV file '" + f.getName() + "': Read " + tuples.size() + " rows with " + columns.size() + " columns; " + numLinesIgnored + " rows ignored.");
+        log.info("Finished reading CSV file '" + f.getName() + "': Read " + tupleCount + " rows with " + columns.size() + " columns; " + numLinesIgnored + " rows ignored.");
 
         long start = System.currentTimeMillis();
-        dataTable.setData(tuples, columns);
+        dataTable.setData(columns);
         long elapsed = System.currentTimeMillis() - start;
 
         log.info("Finished setting data in datamodel (it took " + elapsed + " ms");
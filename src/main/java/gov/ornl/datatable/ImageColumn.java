@@ -5,24 +5,52 @@ import javafx.util.Pair;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 public class ImageColumn extends Column {
+    private ArrayList<Pair<File, Image>> values = new ArrayList<>();
 
     public ImageColumn(String name) {
         super(name);
     }
 
     @Override
-    public boolean setFocusContext(Tuple tuple, int elementIdx) {
-        getFocusTuples().add(tuple);
+    protected boolean setFocusContext(int row) {
+        setRowInFocus(row);
         return true;
     }
 
     @Override
-    public void calculateStatistics() {
+    public Pair<File, Image> getValue(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    protected void addValue(Object value) {
+        values.add((Pair<File, Image>)value);
+        size++;
+    }
+
+    @Override
+    protected void retainRows(BitSet rows) {
+        int newSize = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            values.set(newSize++, values.get(row));
+        }
+        values.subList(newSize, size).clear();
+        size = newSize;
+    }
+
+    @Override
+    protected void clearValues() {
+        values = new ArrayList<>();
+        size = 0;
+    }
 
+    @Override
+    protected Runnable prepareStatistics() {
+        return () -> { };
     }
 
     @Override
@@ -31,56 +59,32 @@ public class ImageColumn extends Column {
     }
 
     public Pair<File, Image>[] getValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-
-        Pair<File, Image>[] values = new Pair[getDataTable().getTupleCount()];
-//        Image values[] = new Image[getDataTable().getTupleCount()];
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            values[i] = (Pair<File, Image>)getDataTable().getTuple(i).getElement(columnIndex);
-//            values[i] = (Image) getDataTable().getTuple(i).getElement(columnIndex);
-        }
-
-        return values;
+        Pair<File, Image>[] imagePairs = new Pair[size];
+        return values.toArray(imagePairs);
     }
 
     public List<Pair<File, Image>> getValuesAsList() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-        ArrayList<Pair<File,Image>> valuesList = new ArrayList<>();
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            valuesList.add((Pair<File, Image>)getDataTable().getTuple(i).getElement(columnIndex));
-//            valuesList.add((Image) getDataTable().getTuple(i).getElement(columnIndex));
-        }
-        return valuesList;
+        return new ArrayList<>(values);
     }
 
     public Pair<File,Image>[] getQueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-
-        Set<Tuple> queriedTuples = getDataTable().getActiveQuery().getQueriedTuples();
-        Pair<File,Image> values[] = new Pair[queriedTuples.size()];
-//        Image values[] = new Image[queriedTuples.size()];
-
-        int counter = 0;
-        for (Tuple tuple : queriedTuples) {
-            values[counter++] = (Pair<File, Image>)tuple.getElement(columnIndex);
-//            values[counter++] = (Image)tuple.getElement(columnIndex);
-        }
-
-        return values;
+        Query query = getDataTable().getActiveQuery();
+        return getValues(query.getQueriedRows(), query.getQueriedTupleCount());
     }
 
     public Pair<File,Image>[] getNonqueriedValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
+        Query query = getDataTable().getActiveQuery();
+        return getValues(query.getNonQueriedRows(), query.getNonQueriedTupleCount());
+    }
 
-        Set<Tuple> nonqueriedTuples = getDataTable().getActiveQuery().getNonQueriedTuples();
-        Pair<File,Image> values[] = new Pair[nonqueriedTuples.size()];
+    private Pair<File,Image>[] getValues(BitSet rows, int rowCount) {
+        Pair<File,Image> imagePairs[] = new Pair[rowCount];
 
         int counter = 0;
-        for (Tuple tuple : nonqueriedTuples) {
-            values[counter++] = (Pair<File, Image>)tuple.getElement(columnIndex);
-//            values[counter++] = (Image)tuple.getElement(columnIndex);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            imagePairs[counter++] = values.get(row);
         }
 
-        return values;
+        return imagePairs;
     }
 }
@@ -0,0 +1,364 @@
+package gov.ornl.datatable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * A mergeable quantile sketch (a deterministic variant of the KLL sketch). Values are kept in
+ * a stack of compactors: when a level is full its values are sorted and every other value is
+ * promoted to the next level with twice the weight. The retained values are real data values
+ * and the rank of any value is estimated within roughly rankError * count of its true rank.
+ * NaN values are ignored.
+ */
+class QuantileSketch {
+    // sketches of more values than this are built per row block on the fork/join pool and merged
+    private final static int PARALLEL_SKETCH_THRESHOLD = 200000;
+    // number of rows summarized by each block sketch
+    private final static int SKETCH_BLOCK_SIZE = 65536;
+    private final static int MIN_LEVEL_CAPACITY = 8;
+
+    // capacity of the top level; lower levels shrink geometrically by 2/3
+    private int k;
+    private double levels[][] = new double[0][];
+    private int levelSizes[] = new int[0];
+    // alternates which half of a level is promoted so that compactions do not bias the ranks
+    private boolean promoteOdd[] = new boolean[0];
+    private long count = 0;
+    // number of values held over all levels
+    private int retainedCount = 0;
+    private int levelCapacities[];
+    private int retainedCapacity;
+
+    // retained values in ascending order and their cumulative weights, built on demand for queries
+    private double sortedItems[];
+    private long cumulativeWeights[];
+
+    QuantileSketch(double rankError) {
+        k = Math.max(8, (int)Math.ceil(2. / rankError));
+        addLevel();
+    }
+
+    // builds a sketch of the values, one block of rows at a time
+    static QuantileSketch build(double values[], double rankError) {
+        SketchTask task = new SketchTask(values, rankError, 0, values.length);
+        if (values.length < PARALLEL_SKETCH_THRESHOLD) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    private QuantileSketch() { }
+
+    // a copy that can be updated without changing this sketch
+    QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch();
+        copy.k = k;
+        copy.levels = new double[levels.length][];
+        for (int level = 0; level < levels.length; level++) {
+            copy.levels[level] = levels[level].clone();
+        }
+        copy.levelSizes = levelSizes.clone();
+        copy.promoteOdd = promoteOdd.clone();
+        copy.count = count;
+        copy.retainedCount = retainedCount;
+        copy.levelCapacities = levelCapacities.clone();
+        copy.retainedCapacity = retainedCapacity;
+        copy.sortedItems = sortedItems;
+        copy.cumulativeWeights = cumulativeWeights;
+        return copy;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (levelSizes[0] == levels[0].length) {
+            levels[0] = Arrays.copyOf(levels[0], Math.max(MIN_LEVEL_CAPACITY, levels[0].length * 2));
+        }
+        levels[0][levelSizes[0]++] = value;
+        retainedCount++;
+        count++;
+        sortedItems = null;
+        if (retainedCount >= retainedCapacity) {
+            compress();
+        }
+    }
+
+    // adds the values summarized by the other sketch to this sketch
+    void merge(QuantileSketch other) {
+        while (levels.length < other.levels.length) {
+            addLevel();
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            appendToLevel(level, other.levels[level], 0, other.levelSizes[level]);
+        }
+        retainedCount += other.retainedCount;
+        count += other.count;
+        sortedItems = null;
+        while (retainedCount >= retainedCapacity) {
+            compress();
+        }
+    }
+
+    // estimated value at the given quantile (0 to 1); NaN if the sketch is empty
+    double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        buildSortedItems();
+        long rank = Math.max(1, (long)Math.ceil(quantile * count));
+        int index = Arrays.binarySearch(cumulativeWeights, rank);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return sortedItems[Math.min(index, sortedItems.length - 1)];
+    }
+
+    // largest retained value that is not greater than maxValue; NaN if there is none
+    double getLargestValueAtMost(double maxValue) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        buildSortedItems();
+        for (int i = sortedItems.length - 1; i >= 0; i--) {
+            if (sortedItems[i] <= maxValue) {
+                return sortedItems[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    // smallest retained value that is not less than minValue; NaN if there is none
+    double getSmallestValueAtLeast(double minValue) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        buildSortedItems();
+        for (int i = 0; i < sortedItems.length; i++) {
+            if (sortedItems[i] >= minValue) {
+                return sortedItems[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    private void addLevel() {
+        int numLevels = levels.length + 1;
+        levels = Arrays.copyOf(levels, numLevels);
+        levels[numLevels - 1] = new double[0];
+        levelSizes = Arrays.copyOf(levelSizes, numLevels);
+        promoteOdd = Arrays.copyOf(promoteOdd, numLevels);
+
+        // the capacities depend on the depth below the top level, so they change with every new level
+        levelCapacities = new int[numLevels];
+        retainedCapacity = 0;
+        for (int level = 0; level < numLevels; level++) {
+            int depth = numLevels - level - 1;
+            levelCapacities[level] = Math.max(MIN_LEVEL_CAPACITY, (int)Math.ceil(k * Math.pow(2. / 3., depth)));
+            retainedCapacity += levelCapacities[level];
+        }
+    }
+
+    private void appendToLevel(int level, double values[], int from, int to) {
+        int newSize = levelSizes[level] + (to - from);
+        if (newSize > levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(newSize, levels[level].length * 2));
+        }
+        System.arraycopy(values, from, levels[level], levelSizes[level], to - from);
+        levelSizes[level] = newSize;
+    }
+
+    // compacts the lowest level that is over its capacity; levels are only compacted when the
+    // sketch as a whole is full, so the lower levels fill up and are sorted in larger batches
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            if (levelSizes[level] < levelCapacities[level]) {
+                continue;
+            }
+            if (level == levels.length - 1) {
+                addLevel();
+            }
+
+            double items[] = levels[level];
+            int size = levelSizes[level];
+            Arrays.sort(items, 0, size);
+
+            // an odd value out stays on this level; the rest are paired and one of each pair is promoted
+            int start = size % 2;
+            int offset = promoteOdd[level] ? 1 : 0;
+            promoteOdd[level] = !promoteOdd[level];
+            int numPromoted = (size - start) / 2;
+            for (int i = 0; i < numPromoted; i++) {
+                items[start + i] = items[start + offset + 2 * i];
+            }
+            appendToLevel(level + 1, items, start, start + numPromoted);
+            levelSizes[level] = start;
+            retainedCount -= numPromoted;
+            return;
+        }
+    }
+
+    private void buildSortedItems() {
+        if (sortedItems != null) {
+            return;
+        }
+
+        int numItems = 0;
+        for (int size : levelSizes) {
+            numItems += size;
+        }
+
+        // sort the retained values together with their weights (2^level)
+        double values[] = new double[numItems];
+        long weights[] = new long[numItems];
+        Integer order[] = new Integer[numItems];
+        int index = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < levelSizes[level]; i++) {
+                values[index] = levels[level][i];
+                weights[index] = 1L << level;
+                order[index] = index;
+                index++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        sortedItems = new double[numItems];
+        cumulativeWeights = new long[numItems];
+        long cumulativeWeight = 0;
+        for (int i = 0; i < numItems; i++) {
+            sortedItems[i] = values[order[i]];
+            cumulativeWeight += weights[order[i]];
+            cumulativeWeights[i] = cumulativeWeight;
+        }
+    }
+
+    /**
+     * Sketches of the values of a set of rows in blocks of SKETCH_BLOCK_SIZE rows, with the row bits each
+     * block sketch was built from. The sketch of a new set of rows rebuilds only the blocks whose rows
+     * changed, and is the merge of the block sketches, so a brush that moves over clustered rows only
+     * summarizes the blocks of the rows that entered or left the query. The block sketches are not
+     * modified once they are built, so they can be shared by copies of the statistics.
+     */
+    static class BlockSketches {
+        private final static int BLOCK_WORDS = SKETCH_BLOCK_SIZE / 64;
+
+        private double rankError;
+        private long rowWords[];
+        private QuantileSketch blocks[];
+        private QuantileSketch sketch;
+
+        private BlockSketches(double rankError, long rowWords[], QuantileSketch blocks[]) {
+            this.rankError = rankError;
+            this.rowWords = rowWords;
+            this.blocks = blocks;
+        }
+
+        // the block sketches of the values of the rows (values holds the value of each row in row order);
+        // the blocks of the previous sketches (which may be null) with the same rows are reused
+        static BlockSketches build(double values[], BitSet rows, double rankError, BlockSketches previous) {
+            long rowWords[] = rows.toLongArray();
+            int numBlocks = (rowWords.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+            boolean reuse = previous != null && previous.rankError == rankError;
+
+            // the offset of each block's values in the values array
+            int blockOffsets[] = new int[numBlocks + 1];
+            for (int block = 0; block < numBlocks; block++) {
+                int count = 0;
+                for (int word = block * BLOCK_WORDS; word < Math.min((block + 1) * BLOCK_WORDS, rowWords.length); word++) {
+                    count += Long.bitCount(rowWords[word]);
+                }
+                blockOffsets[block + 1] = blockOffsets[block] + count;
+            }
+
+            QuantileSketch blocks[] = new QuantileSketch[numBlocks];
+            IntStream blockStream = IntStream.range(0, numBlocks);
+            if (values.length >= PARALLEL_SKETCH_THRESHOLD) {
+                blockStream = blockStream.parallel();
+            }
+            blockStream.forEach(block -> {
+                if (reuse && block < previous.blocks.length && sameWords(rowWords, previous.rowWords, block * BLOCK_WORDS,
+                        (block + 1) * BLOCK_WORDS)) {
+                    blocks[block] = previous.blocks[block];
+                    return;
+                }
+                QuantileSketch blockSketch = new QuantileSketch(rankError);
+                for (int i = blockOffsets[block]; i < blockOffsets[block + 1]; i++) {
+                    blockSketch.update(values[i]);
+                }
+                blocks[block] = blockSketch;
+            });
+
+            BlockSketches blockSketches = new BlockSketches(rankError, rowWords, blocks);
+            blockSketches.sketch = new QuantileSketch(rankError);
+            for (QuantileSketch blockSketch : blocks) {
+                blockSketches.sketch.merge(blockSketch);
+            }
+            return blockSketches;
+        }
+
+        // true if the words in [from, to) are equal (words past the end of an array are 0)
+        private static boolean sameWords(long words1[], long words2[], int from, int to) {
+            for (int word = from; word < to; word++) {
+                long word1 = word < words1.length ? words1[word] : 0L;
+                long word2 = word < words2.length ? words2[word] : 0L;
+                if (word1 != word2) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // the sketch of all of the rows, merged from the block sketches (it is copied before it is updated)
+        QuantileSketch getSketch() {
+            return sketch;
+        }
+
+        long getEstimatedSize() {
+            long size = 8L * rowWords.length;
+            for (QuantileSketch blockSketch : blocks) {
+                size += 8L * blockSketch.retainedCount;
+            }
+            return size;
+        }
+    }
+
+    private static class SketchTask extends RecursiveTask<QuantileSketch> {
+        private double values[];
+        private double rankError;
+        private int from;
+        private int to;
+
+        SketchTask(double values[], double rankError, int from, int to) {
+            this.values = values;
+            this.rankError = rankError;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected QuantileSketch compute() {
+            if (to - from <= SKETCH_BLOCK_SIZE || getPool() == null) {
+                QuantileSketch sketch = new QuantileSketch(rankError);
+                for (int i = from; i < to; i++) {
+                    sketch.update(values[i]);
+                }
+                return sketch;
+            }
+
+            int mid = (from + to) >>> 1;
+            SketchTask lowerTask = new SketchTask(values, rankError, from, mid);
+            lowerTask.fork();
+            QuantileSketch sketch = new SketchTask(values, rankError, mid, to).compute();
+            sketch.merge(lowerTask.join());
+            return sketch;
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package gov.ornl.datatable;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class Query {
     private final static Logger log = Logger.getLogger(Query.class.getName());
 
+    // tables with at least this many rows evaluate row predicates on the fork/join pool
+    private final static int PARALLEL_QUERY_THRESHOLD = 200000;
+    // number of rows each fork/join task evaluates sequentially (a multiple of 64)
+    private final static int PARALLEL_QUERY_CHUNK_SIZE = 16384;
+
     private String id;
 
     private ListProperty<ColumnSelection> columnSelections;
@@ -19,8 +31,47 @@ public class Query {
     private HashMap<Column, ColumnSummaryStats> columnNonquerySummaryStatsMap;
     private DataTable dataModel;
 
-    private HashSet<Tuple> queriedTuples;
-    private HashSet<Tuple> nonQueriedTuples;
+    // rows of the data table that are in (and not in) the query, as bitsets over the row indices
+    private BitSet queriedRows;
+    private BitSet nonQueriedRows;
+    private int queriedRowCount = 0;
+    private int nonQueriedRowCount = 0;
+    // number of rows in the data table when the query was last evaluated
+    private int rowCount = 0;
+
+    // lazily created Set<Tuple> views of the row bitsets
+    private Set<Tuple> queriedTuples;
+    private Set<Tuple> nonQueriedTuples;
+
+    // cached pass mask (rows satisfying any of the column's selections) for each selected column;
+    // a column's mask is dropped when one of its selections is added or removed and is updated
+    // (invalidated) when one of its selections changes
+    private HashMap<Column, BitSet> columnPassMasks = new HashMap<>();
+    private HashSet<Column> invalidatedColumns = new HashSet<>();
+    // sorted index positions covered by the mask of a column with a single range selection
+    private HashMap<Column, RangeMaskState> columnRangeMaskStates = new HashMap<>();
+    private HashMap<ColumnSelection, InvalidationListener> columnSelectionListeners = new HashMap<>();
+
+    // correlations between the double columns over the queried and nonqueried rows (computed on demand
+    // after the query or the data changes)
+    private CorrelationMatrix queryCorrelationMatrix;
+    private CorrelationMatrix nonqueryCorrelationMatrix;
+    // sums the query correlations are derived from; they are updated with the rows whose query flag
+    // flipped and rebuilt once the flipped rows add up to the number of rows
+    private CorrelationSums queryCorrelationSums;
+    private long correlationSumsFlippedRowCount = 0;
+
+    // 2D histograms of column pairs over the queried rows, by [x column, y column] (dropped when the query changes)
+    private HashMap<List<Column>, Histogram2D> queryHistogram2DMap = new HashMap<>();
+
+    // number of query evaluations started; an asynchronous evaluation is superseded (and its result
+    // dropped) once a later evaluation starts
+    private volatile long evaluationGeneration = 0;
+
+    // the latest result handed out to the views and whether it is still current; statistics objects held by
+    // the result are copied before they are updated
+    private volatile QueryResult result;
+    private boolean resultCurrent = false;
 
     public Query(String id, DataTable dataModel) {
         this.id = id;
@@ -28,169 +79,894 @@ public class Query {
         columnSelections = new SimpleListProperty<>(FXCollections.observableArrayList());
         columnQuerySummaryStatsMap = new HashMap<>();
         columnNonquerySummaryStatsMap = new HashMap<>();
-        queriedTuples = new HashSet<>();
-        nonQueriedTuples = new HashSet<>();
+        queriedRows = new BitSet();
+        nonQueriedRows = new BitSet();
+
+        columnSelections.addListener((ListChangeListener<ColumnSelection>) change -> {
+            while (change.next()) {
+                for (ColumnSelection columnSelection : change.getRemoved()) {
+                    InvalidationListener listener = columnSelectionListeners.remove(columnSelection);
+                    if (listener != null) {
+                        getSelectionObservable(columnSelection).removeListener(listener);
+                    }
+                    columnPassMasks.remove(columnSelection.getColumn());
+                    columnRangeMaskStates.remove(columnSelection.getColumn());
+                }
+                for (ColumnSelection columnSelection : change.getAddedSubList()) {
+                    if (!columnSelectionListeners.containsKey(columnSelection)) {
+                        InvalidationListener listener = observable -> invalidatedColumns.add(columnSelection.getColumn());
+                        getSelectionObservable(columnSelection).addListener(listener);
+                        columnSelectionListeners.put(columnSelection, listener);
+                    }
+                    columnPassMasks.remove(columnSelection.getColumn());
+                    columnRangeMaskStates.remove(columnSelection.getColumn());
+                }
+            }
+        });
+    }
+
+    private static Observable getSelectionObservable(ColumnSelection columnSelection) {
+        if (columnSelection instanceof DoubleColumnSelectionRange) {
+            return ((DoubleColumnSelectionRange)columnSelection).rangeValuesProperty();
+        } else if (columnSelection instanceof TemporalColumnSelectionRange) {
+            return ((TemporalColumnSelectionRange)columnSelection).rangeInstantsProperty();
+        } else if (columnSelection instanceof CategoricalColumnSelection) {
+            return ((CategoricalColumnSelection)columnSelection).selectedCategoriesProperty();
+        } else {
+            return ((ImageColumnSelection)columnSelection).selectedImagePairSetProperty();
+        }
     }
 
     public Set<Tuple> getQueriedTuples() {
+        if (queriedTuples == null) {
+            queriedTuples = new RowTupleSet(dataModel, queriedRows);
+        }
         return queriedTuples;
     }
 
     public int getQueriedTupleCount() {
-        return queriedTuples.size();
+        return queriedRowCount;
     }
 
     public int getNonQueriedTupleCount() {
-        return nonQueriedTuples.size();
+        return nonQueriedRowCount;
     }
 
     public Set<Tuple> getNonQueriedTuples() {
+        if (nonQueriedTuples == null) {
+            nonQueriedTuples = new RowTupleSet(dataModel, nonQueriedRows);
+        }
         return nonQueriedTuples;
     }
 
+    // returns the bitset of queried row indices (the bitset is owned by the query and must not be modified;
+    // it is updated in place when the query is evaluated)
+    public BitSet getQueriedRows() {
+        return queriedRows;
+    }
+
+    // returns the bitset of nonqueried row indices (the bitset is owned by the query and must not be modified)
+    public BitSet getNonQueriedRows() {
+        return nonQueriedRows;
+    }
+
+    public boolean getQueryFlag(int row) {
+        return row < rowCount ? queriedRows.get(row) : true;
+    }
+
     public void setQueriedTuples() {
-        queriedTuples.clear();
-        nonQueriedTuples.clear();
+        evaluationGeneration++;
+        resultCurrent = false;
+        queryCorrelationMatrix = null;
+        nonqueryCorrelationMatrix = null;
+        queryHistogram2DMap.clear();
+        BitSet previousQueriedRows = queryCorrelationSums != null ? (BitSet)queriedRows.clone() : null;
+        queriedRows.clear();
+        nonQueriedRows.clear();
+        queriedRowCount = 0;
+        nonQueriedRowCount = 0;
 
-        if (dataModel.getTupleCount() == 0) {
+        if (dataModel.getTupleCount() != rowCount) {
+            // the cached masks were computed for a different set of rows
+            columnPassMasks.clear();
+            columnRangeMaskStates.clear();
+            queryCorrelationSums = null;
+        }
+        rowCount = dataModel.getTupleCount();
+        if (rowCount == 0) {
             return;
         }
 
         if (hasColumnSelections()) {
-            for (Tuple tuple : dataModel.getTuples()) {
-                tuple.setQueryFlag(true);
+            // a selection state that was evaluated before (e.g., a toggled or undone brush) is restored
+            List<Object> resultCacheKey = getResultCacheKey();
+            QueryResult cachedResult = dataModel.getQueryResultCache().get(resultCacheKey);
+            if (cachedResult != null) {
+                restoreResult(cachedResult);
+                return;
+            }
 
-                for (int icol = 0; icol < dataModel.getColumnCount(); icol++) {
-                    Column column = dataModel.getColumn(icol);
+            // the query is the AND of the pass masks of the selected columns; only masks that
+            // were invalidated since the last evaluation are recalculated
+            queriedRows.set(0, rowCount);
+            for (int icol = 0; icol < dataModel.getColumnCount(); icol++) {
+                Column column = dataModel.getColumn(icol);
+                BitSet passMask = columnPassMasks.get(column);
+                if (passMask == null || invalidatedColumns.contains(column)) {
                     ArrayList<ColumnSelection> columnSelections = getColumnSelections(column);
-                    if (columnSelections != null && (!columnSelections.isEmpty())) {
-                        boolean inSelection = false;
-
-                        if (column instanceof DoubleColumn) {
-                            for (ColumnSelection columnSelection : columnSelections) {
-                                if ((((Double)tuple.getElement(icol)) <= ((DoubleColumnSelectionRange)columnSelection).getMaxValue()) &&
-                                        (((Double)tuple.getElement(icol)) >= ((DoubleColumnSelectionRange)columnSelection).getMinValue())) {
-                                    inSelection = true;
-                                    break;
-                                }
-                            }
-                        } else if (column instanceof TemporalColumn) {
-                            for (ColumnSelection columnSelection : columnSelections) {
-                                if (!((((Instant)tuple.getElement(icol)).isBefore(((TemporalColumnSelectionRange)columnSelection).getStartInstant())) ||
-                                        ((Instant)tuple.getElement(icol)).isAfter(((TemporalColumnSelectionRange)columnSelection).getEndInstant()))) {
-                                    inSelection = true;
-                                    break;
-							    }
-                            }
-                        } else if (column instanceof CategoricalColumn) {
-                            for (ColumnSelection columnSelection : columnSelections) {
-                                if (((CategoricalColumnSelection)columnSelection).getSelectedCategories().contains(tuple.getElement(icol))) {
-                                    inSelection = true;
-                                    break;
-                                }
-                            }
-                        } else if (column instanceof ImageColumn) {
-                            for (ColumnSelection columnSelection : columnSelections) {
-                                if (((ImageColumnSelection)columnSelection).getSelectedImagePairs().contains(tuple.getElement(icol))) {
-                                    inSelection = true;
-                                    break;
-                                }
-                            }
-                        }
-
-                        if (!inSelection) {
-                            tuple.setQueryFlag(false);
-                            break;
-                        }
+                    if (columnSelections.isEmpty()) {
+                        columnPassMasks.remove(column);
+                        columnRangeMaskStates.remove(column);
+                        continue;
                     }
+                    passMask = calculateColumnPassMask(column, columnSelections, passMask);
+                    columnPassMasks.put(column, passMask);
                 }
+                queriedRows.and(passMask);
+            }
+            invalidatedColumns.clear();
 
-                if (tuple.getQueryFlag()) {
-                    queriedTuples.add(tuple);
-                } else {
-                    nonQueriedTuples.add(tuple);
-                }
+            nonQueriedRows.set(0, rowCount);
+            nonQueriedRows.andNot(queriedRows);
+            queriedRowCount = queriedRows.cardinality();
+            nonQueriedRowCount = rowCount - queriedRowCount;
+
+            if (queryCorrelationSums != null) {
+                updateQueryCorrelationSums(previousQueriedRows);
             }
 
             calculateStatistics();
+            dataModel.getQueryResultCache().put(resultCacheKey, getResult());
         } else {
-            for (Tuple tuple : dataModel.getTuples()) {
-                tuple.setQueryFlag(false);
-                nonQueriedTuples.add(tuple);
-            }
+            nonQueriedRows.set(0, rowCount);
+            nonQueriedRowCount = rowCount;
+            queryCorrelationSums = null;
             columnQuerySummaryStatsMap.clear();
             columnNonquerySummaryStatsMap.clear();
         }
     }
 
+    // evaluates the query for rows appended to the table in [fromRow, toRow): the cached pass masks are
+    // extended by testing only the appended rows, and the statistics merge in the appended queried and
+    // nonqueried values instead of being recomputed from all rows
+    void appendRows(int fromRow, int toRow) {
+        evaluationGeneration++;
+        resultCurrent = false;
+        if (rowCount != fromRow || !invalidatedColumns.isEmpty()) {
+            setQueriedTuples();
+            return;
+        }
+
+        queryCorrelationMatrix = null;
+        nonqueryCorrelationMatrix = null;
+        queryHistogram2DMap.clear();
+        rowCount = toRow;
+        if (!hasColumnSelections()) {
+            nonQueriedRows.set(fromRow, toRow);
+            nonQueriedRowCount = rowCount;
+            return;
+        }
+
+        BitSet appendedQueriedRows = new BitSet(toRow);
+        appendedQueriedRows.set(fromRow, toRow);
+        for (int icol = 0; icol < dataModel.getColumnCount(); icol++) {
+            Column column = dataModel.getColumn(icol);
+            ArrayList<ColumnSelection> columnSelections = getColumnSelections(column);
+            if (columnSelections.isEmpty()) {
+                continue;
+            }
+            BitSet passMask = columnPassMasks.get(column);
+            if (passMask == null) {
+                // the mask was never computed, so the query is evaluated for all rows
+                rowCount = fromRow;
+                setQueriedTuples();
+                return;
+            }
+            IntPredicate rowPredicate = getSelectionPredicate(column, columnSelections);
+            for (int row = fromRow; row < toRow; row++) {
+                if (rowPredicate.test(row)) {
+                    passMask.set(row);
+                }
+            }
+            // the sorted positions of a range mask no longer match the column's sorted index
+            columnRangeMaskStates.remove(column);
+            appendedQueriedRows.and(passMask);
+        }
+
+        queriedRows.or(appendedQueriedRows);
+        int appendedQueriedRowCount = appendedQueriedRows.cardinality();
+        queriedRowCount += appendedQueriedRowCount;
+        nonQueriedRows.set(fromRow, toRow);
+        nonQueriedRows.andNot(appendedQueriedRows);
+        nonQueriedRowCount += toRow - fromRow - appendedQueriedRowCount;
+
+        if (queryCorrelationSums != null) {
+            queryCorrelationSums.update(appendedQueriedRows, queriedRows);
+            if (!queryCorrelationSums.isFinite()) {
+                queryCorrelationSums = null;
+            }
+        }
+
+        appendStatistics(fromRow, toRow);
+    }
+
+    // returns the rows that satisfy at least one of the column's selections; a single range selection is
+    // answered from the column's sorted index and, when its bounds moved, the previous mask is updated by
+    // flipping only the rows between the old and new bounds
+    private BitSet calculateColumnPassMask(Column column, List<ColumnSelection> columnSelections, BitSet previousPassMask) {
+        if ((column instanceof DoubleColumn || column instanceof TemporalColumn) && columnSelections.size() == 1) {
+            SortedRowIndex sortedRowIndex = column instanceof DoubleColumn ?
+                    ((DoubleColumn)column).getSortedRowIndex() : ((TemporalColumn)column).getSortedRowIndex();
+
+            int bounds[] = getSortedBounds(sortedRowIndex, columnSelections.get(0));
+            RangeMaskState rangeMaskState = columnRangeMaskStates.get(column);
+            if (previousPassMask != null && rangeMaskState != null && rangeMaskState.sortedRowIndex == sortedRowIndex) {
+                flipRows(previousPassMask, sortedRowIndex, rangeMaskState.lowerPosition, bounds[0]);
+                flipRows(previousPassMask, sortedRowIndex, rangeMaskState.upperPosition, bounds[1]);
+                rangeMaskState.lowerPosition = bounds[0];
+                rangeMaskState.upperPosition = bounds[1];
+                return previousPassMask;
+            }
+
+            BitSet passMask = new BitSet(rowCount);
+            flipRows(passMask, sortedRowIndex, bounds[0], bounds[1]);
+            columnRangeMaskStates.put(column, new RangeMaskState(sortedRowIndex, bounds[0], bounds[1]));
+            return passMask;
+        }
+
+        // several ranges, categories, or images: test each row (in parallel chunks for large tables)
+        columnRangeMaskStates.remove(column);
+        return scanPassMask(getSelectionPredicate(column, columnSelections), rowCount);
+    }
+
+    private static BitSet scanPassMask(IntPredicate rowPredicate, int rowCount) {
+        long words[] = new long[(rowCount + 63) >>> 6];
+        PassMaskTask passMaskTask = new PassMaskTask(rowPredicate, words, 0, rowCount);
+        if (rowCount < PARALLEL_QUERY_THRESHOLD) {
+            passMaskTask.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(passMaskTask);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // returns a predicate that is true for the rows satisfying at least one of the column's selections
+    private static IntPredicate getSelectionPredicate(Column column, List<ColumnSelection> columnSelections) {
+        int selectionCount = columnSelections.size();
+        if (column instanceof DoubleColumn) {
+            double values[] = ((DoubleColumn)column).getValueArray();
+            double minValues[] = new double[selectionCount];
+            double maxValues[] = new double[selectionCount];
+            for (int i = 0; i < selectionCount; i++) {
+                minValues[i] = ((DoubleColumnSelectionRange)columnSelections.get(i)).getMinValue();
+                maxValues[i] = ((DoubleColumnSelectionRange)columnSelections.get(i)).getMaxValue();
+            }
+            return row -> {
+                double value = values[row];
+                for (int i = 0; i < minValues.length; i++) {
+                    if (value <= maxValues[i] && value >= minValues[i]) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        } else if (column instanceof TemporalColumn) {
+            long values[] = ((TemporalColumn)column).getEpochMilliArray();
+            long startValues[] = new long[selectionCount];
+            long endValues[] = new long[selectionCount];
+            for (int i = 0; i < selectionCount; i++) {
+                TemporalColumnSelectionRange temporalSelection = (TemporalColumnSelectionRange)columnSelections.get(i);
+                startValues[i] = TemporalColumn.toEpochMilliCeiling(temporalSelection.getStartInstant());
+                endValues[i] = TemporalColumn.toEpochMilliFloor(temporalSelection.getEndInstant());
+            }
+            return row -> {
+                long value = values[row];
+                for (int i = 0; i < startValues.length; i++) {
+                    if (value >= startValues[i] && value <= endValues[i]) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        } else if (column instanceof CategoricalColumn) {
+            // resolve the selected categories to category ids once and test the row codes
+            CategoricalColumn categoricalColumn = (CategoricalColumn)column;
+            boolean selectedCategoryIDs[] = new boolean[categoricalColumn.getCategories().size()];
+            for (ColumnSelection columnSelection : columnSelections) {
+                for (String category : ((CategoricalColumnSelection)columnSelection).getSelectedCategories()) {
+                    int categoryID = categoricalColumn.getCategoryID(category);
+                    if (categoryID != -1) {
+                        selectedCategoryIDs[categoryID] = true;
+                    }
+                }
+            }
+            int categoryIDs[] = categoricalColumn.getCategoryIDArray();
+            return row -> selectedCategoryIDs[categoryIDs[row]];
+        } else if (column instanceof ImageColumn) {
+            // copy the selected images so the predicate can be used from several threads
+            HashSet<Object> selectedImagePairs = new HashSet<>();
+            for (ColumnSelection columnSelection : columnSelections) {
+                selectedImagePairs.addAll(((ImageColumnSelection)columnSelection).getSelectedImagePairs());
+            }
+            return row -> selectedImagePairs.contains(column.getValue(row));
+        }
+        return row -> false;
+    }
+
+    // returns the [lower, upper) positions of the sorted index covered by the range selection
+    private static int[] getSortedBounds(SortedRowIndex sortedRowIndex, ColumnSelection columnSelection) {
+        return getSortedBoundsFunction(columnSelection).apply(sortedRowIndex);
+    }
+
+    // the function returning the sorted positions of the range selection in an index; the range is read when
+    // the function is created, so it can be applied on another thread
+    private static Function<SortedRowIndex, int[]> getSortedBoundsFunction(ColumnSelection columnSelection) {
+        if (columnSelection instanceof DoubleColumnSelectionRange) {
+            DoubleColumnSelectionRange doubleSelection = (DoubleColumnSelectionRange)columnSelection;
+            double minValue = doubleSelection.getMinValue();
+            double maxValue = doubleSelection.getMaxValue();
+            return sortedRowIndex -> getSortedBounds(sortedRowIndex.lowerBound(minValue), sortedRowIndex.upperBound(maxValue));
+        }
+        TemporalColumnSelectionRange temporalSelection = (TemporalColumnSelectionRange)columnSelection;
+        long startValue = TemporalColumn.toEpochMilliCeiling(temporalSelection.getStartInstant());
+        long endValue = TemporalColumn.toEpochMilliFloor(temporalSelection.getEndInstant());
+        return sortedRowIndex -> getSortedBounds(sortedRowIndex.lowerBound(startValue), sortedRowIndex.upperBound(endValue));
+    }
+
+    private static int[] getSortedBounds(int lowerPosition, int upperPosition) {
+        return new int[] {lowerPosition, Math.max(lowerPosition, upperPosition)};
+    }
+
+    // flips the mask bits of the rows at the sorted positions between the two positions
+    private static void flipRows(BitSet mask, SortedRowIndex sortedRowIndex, int position1, int position2) {
+        for (int position = Math.min(position1, position2); position < Math.max(position1, position2); position++) {
+            mask.flip(sortedRowIndex.getRow(position));
+        }
+    }
+
+    // makes the evaluation in flight (if any) stop at its next check and its publish step do nothing
+    void supersedeAsynchronousEvaluation() {
+        evaluationGeneration++;
+    }
+
+    // captures the selections, settings, and column value arrays on the calling (FX) thread (appended rows
+    // do not change the captured rows, and the data table drains the worker before rows are removed or
+    // replaced) and returns the evaluation to run on
+    // a worker thread; the evaluation computes the query rows, statistics, and correlation sums into new
+    // objects and returns the step that publishes them on the FX thread, or null if a later evaluation
+    // superseded it (the publish step does nothing if it is superseded before it runs); the cached pass
+    // masks are not used or updated, so the next synchronous evaluation still starts from them
+    Supplier<Runnable> prepareAsynchronousEvaluation() {
+        long generation = ++evaluationGeneration;
+        int rowCount = dataModel.getTupleCount();
+        boolean selected = rowCount > 0 && hasColumnSelections();
+
+        List<Object> resultCacheKey = selected ? getResultCacheKey() : null;
+        QueryResult cachedResult = selected ? dataModel.getQueryResultCache().get(resultCacheKey) : null;
+        if (cachedResult != null) {
+            return () -> () -> {
+                if (generation == evaluationGeneration && dataModel.getTupleCount() == rowCount) {
+                    restoreResult(cachedResult);
+                }
+            };
+        }
+
+        ArrayList<Supplier<BitSet>> passMaskTasks = new ArrayList<>();
+        if (selected) {
+            for (Column column : dataModel.getColumns()) {
+                ArrayList<ColumnSelection> columnSelections = getColumnSelections(column);
+                if (columnSelections.isEmpty()) {
+                    continue;
+                }
+                if ((column instanceof DoubleColumn || column instanceof TemporalColumn) && columnSelections.size() == 1) {
+                    // the sorted index is built (if needed) on the worker
+                    Function<SortedRowIndex, int[]> sortedBoundsFunction = getSortedBoundsFunction(columnSelections.get(0));
+                    passMaskTasks.add(() -> {
+                        SortedRowIndex sortedRowIndex = column instanceof DoubleColumn ?
+                                ((DoubleColumn)column).getSortedRowIndex() : ((TemporalColumn)column).getSortedRowIndex();
+                        int bounds[] = sortedBoundsFunction.apply(sortedRowIndex);
+                        BitSet passMask = new BitSet(rowCount);
+                        flipRows(passMask, sortedRowIndex, bounds[0], bounds[1]);
+                        return passMask;
+                    });
+                } else {
+                    IntPredicate rowPredicate = getSelectionPredicate(column, columnSelections);
+                    passMaskTasks.add(() -> scanPassMask(rowPredicate, rowCount));
+                }
+            }
+        }
+
+        // the statistics tasks read the rows when they run, after the worker has filled them in
+        BitSet newQueriedRows = new BitSet(rowCount);
+        BitSet newNonQueriedRows = new BitSet(rowCount);
+        HashMap<Column, ColumnSummaryStats> newQuerySummaryStatsMap = new HashMap<>();
+        HashMap<Column, ColumnSummaryStats> newNonquerySummaryStatsMap = new HashMap<>();
+        List<Supplier<Runnable>> statisticsTasks = selected ? createStatisticsTasks(dataModel.getColumns(), newQueriedRows,
+                newNonQueriedRows, rowCount, newQuerySummaryStatsMap, newNonquerySummaryStatsMap) : Collections.emptyList();
+        CorrelationSums totalCorrelationSums = selected ? dataModel.getCorrelationSums() : null;
+        List<Object> statisticsSettings = getStatisticsSettings();
+
+        // the worker updates a copy of the current correlation sums with the rows whose query flag flips (as
+        // updateQueryCorrelationSums does), starting from a copy of the rows the sums cover
+        CorrelationSums previousCorrelationSums = selected && this.rowCount == rowCount ?
+                copyQueryCorrelationSums(totalCorrelationSums) : null;
+        BitSet flippedRows = previousCorrelationSums != null ? (BitSet)queriedRows.clone() : null;
+        long previousFlippedRowCount = correlationSumsFlippedRowCount;
+
+        // the 2D histograms the views use for the current query are counted over the new queried rows on the worker
+        LinkedHashMap<List<Column>, Supplier<Histogram2D>> histogram2DTasks = new LinkedHashMap<>();
+        if (selected) {
+            for (List<Column> columnPair : queryHistogram2DMap.keySet()) {
+                if (dataModel.getColumns().containsAll(columnPair)) {
+                    histogram2DTasks.put(columnPair, Histogram2D.prepareBuild(columnPair.get(0), columnPair.get(1),
+                            newQueriedRows, rowCount, dataModel.getNumHistogramBins()));
+                }
+            }
+        }
+
+        return () -> {
+            if (selected) {
+                newQueriedRows.set(0, rowCount);
+                for (Supplier<BitSet> passMaskTask : passMaskTasks) {
+                    if (generation != evaluationGeneration) {
+                        return null;
+                    }
+                    newQueriedRows.and(passMaskTask.get());
+                }
+            }
+            newNonQueriedRows.set(0, rowCount);
+            newNonQueriedRows.andNot(newQueriedRows);
+
+            if (generation != evaluationGeneration) {
+                return null;
+            }
+            List<Runnable> publishSteps = dataModel.prepareStatistics(statisticsTasks);
+
+            if (generation != evaluationGeneration) {
+                return null;
+            }
+            CorrelationSums newQueryCorrelationSums = null;
+            long newFlippedRowCount = 0;
+            if (previousCorrelationSums != null) {
+                flippedRows.xor(newQueriedRows);
+                int flippedRowCount = flippedRows.cardinality();
+                newFlippedRowCount = previousFlippedRowCount + flippedRowCount;
+                newQueryCorrelationSums = updateCorrelationSums(previousCorrelationSums, flippedRows, flippedRowCount,
+                        newFlippedRowCount, newQueriedRows, newQueriedRows.cardinality(), rowCount);
+            }
+            if (selected && newQueryCorrelationSums == null) {
+                newQueryCorrelationSums = CorrelationSums.compute(totalCorrelationSums.getColumns(), newQueriedRows,
+                        rowCount, totalCorrelationSums.getShifts());
+                newFlippedRowCount = 0;
+            }
+
+            HashMap<List<Column>, Histogram2D> newQueryHistogram2DMap = new HashMap<>();
+            for (Map.Entry<List<Column>, Supplier<Histogram2D>> histogram2DTask : histogram2DTasks.entrySet()) {
+                if (generation != evaluationGeneration) {
+                    return null;
+                }
+                Histogram2D histogram2D = histogram2DTask.getValue().get();
+                if (histogram2D != null) {
+                    newQueryHistogram2DMap.put(histogram2DTask.getKey(), histogram2D);
+                }
+            }
+            CorrelationSums publishedCorrelationSums = newQueryCorrelationSums;
+            long publishedFlippedRowCount = newFlippedRowCount;
+
+            return () -> {
+                if (generation != evaluationGeneration) {
+                    return;
+                }
+                resultCurrent = false;
+                queryCorrelationMatrix = null;
+                nonqueryCorrelationMatrix = null;
+                queryHistogram2DMap.clear();
+                if (this.rowCount != rowCount) {
+                    columnPassMasks.clear();
+                    columnRangeMaskStates.clear();
+                }
+                this.rowCount = rowCount;
+                // the rows are copied into the query's bitsets so the tuple views of the query stay current
+                queriedRows.clear();
+                queriedRows.or(newQueriedRows);
+                nonQueriedRows.clear();
+                nonQueriedRows.or(newNonQueriedRows);
+                queriedRowCount = newQueriedRows.cardinality();
+                nonQueriedRowCount = rowCount - queriedRowCount;
+                queryCorrelationSums = publishedCorrelationSums != null && publishedCorrelationSums.isFinite() ?
+                        publishedCorrelationSums : null;
+                correlationSumsFlippedRowCount = publishedFlippedRowCount;
+                queryHistogram2DMap.putAll(newQueryHistogram2DMap);
+
+                columnQuerySummaryStatsMap.clear();
+                columnQuerySummaryStatsMap.putAll(newQuerySummaryStatsMap);
+                columnNonquerySummaryStatsMap.clear();
+                columnNonquerySummaryStatsMap.putAll(newNonquerySummaryStatsMap);
+                if (!selected) {
+                    return;
+                }
+                for (Runnable publishStep : publishSteps) {
+                    publishStep.run();
+                }
+                if (!statisticsSettings.equals(getStatisticsSettings())) {
+                    // the statistics settings changed while the evaluation ran
+                    calculateStatistics();
+                } else {
+                    updateCorrelations();
+                    dataModel.getQueryResultCache().put(resultCacheKey, getResult());
+                }
+            };
+        };
+    }
+
+    // the canonical state the result of the query depends on: the selections (as an order independent set of
+    // [column, range or selected values]), the number of rows, the statistics settings, and the enabled columns
+    private List<Object> getResultCacheKey() {
+        HashSet<List<Object>> selectionStates = new HashSet<>();
+        for (ColumnSelection columnSelection : columnSelections) {
+            Column column = columnSelection.getColumn();
+            if (columnSelection instanceof DoubleColumnSelectionRange) {
+                DoubleColumnSelectionRange doubleSelection = (DoubleColumnSelectionRange)columnSelection;
+                selectionStates.add(Arrays.asList(column, doubleSelection.getMinValue(), doubleSelection.getMaxValue()));
+            } else if (columnSelection instanceof TemporalColumnSelectionRange) {
+                TemporalColumnSelectionRange temporalSelection = (TemporalColumnSelectionRange)columnSelection;
+                selectionStates.add(Arrays.asList(column, temporalSelection.getStartInstant(), temporalSelection.getEndInstant()));
+            } else if (columnSelection instanceof CategoricalColumnSelection) {
+                selectionStates.add(Arrays.asList(column,
+                        new HashSet<>(((CategoricalColumnSelection)columnSelection).getSelectedCategories())));
+            } else if (columnSelection instanceof ImageColumnSelection) {
+                selectionStates.add(Arrays.asList(column,
+                        new HashSet<>(((ImageColumnSelection)columnSelection).getSelectedImagePairs())));
+            }
+        }
+        return Arrays.asList(selectionStates, dataModel.getTupleCount(), getStatisticsSettings(),
+                new ArrayList<>(dataModel.getColumns()));
+    }
+
+    // restores the rows and statistics of a cached result; the cached statistics are held by the new result,
+    // so they are copied before they are updated, and the pass masks of the changed columns stay invalidated,
+    // so the next evaluation still starts from the cached masks
+    private void restoreResult(QueryResult cachedResult) {
+        resultCurrent = false;
+        queryCorrelationMatrix = null;
+        nonqueryCorrelationMatrix = null;
+        queryHistogram2DMap.clear();
+        rowCount = cachedResult.getRowCount();
+        queriedRows.clear();
+        queriedRows.or(cachedResult.getQueriedRows());
+        queriedRowCount = cachedResult.getQueriedTupleCount();
+        nonQueriedRows.clear();
+        nonQueriedRows.set(0, rowCount);
+        nonQueriedRows.andNot(queriedRows);
+        nonQueriedRowCount = rowCount - queriedRowCount;
+        queryCorrelationSums = null;
+        correlationSumsFlippedRowCount = 0;
+
+        restoreStatistics(cachedResult.getColumnQuerySummaryStatsMap(), columnQuerySummaryStatsMap);
+        restoreStatistics(cachedResult.getColumnNonquerySummaryStatsMap(), columnNonquerySummaryStatsMap);
+        getResult();
+    }
+
+    private void restoreStatistics(Map<Column, ColumnSummaryStats> cachedSummaryStatsMap,
+                                   Map<Column, ColumnSummaryStats> summaryStatsMap) {
+        summaryStatsMap.clear();
+        for (Map.Entry<Column, ColumnSummaryStats> entry : cachedSummaryStatsMap.entrySet()) {
+            ColumnSummaryStats summaryStats = entry.getValue();
+            if (summaryStats.query != this) {
+                // statistics of a previous active query (the active query is replaced when its selections are cleared)
+                summaryStats = summaryStats.copy();
+                summaryStats.query = this;
+            }
+            summaryStatsMap.put(entry.getKey(), summaryStats);
+        }
+    }
+
+    // the settings the statistics tasks depend on
+    private List<Object> getStatisticsSettings() {
+        return Arrays.asList(dataModel.getNumHistogramBins(), dataModel.getCalculateQueryStatistics(),
+                dataModel.getCalculateNonQueryStatistics(), dataModel.getApproximateStatistics(),
+                dataModel.getApproximateStatisticsRankError());
+    }
+
     public void setNumHistogramBins(int numBins) {
-        for (ColumnSummaryStats summaryStats : columnQuerySummaryStatsMap.values()) {
-            summaryStats.setNumHistogramBins(numBins);
+        resultCurrent = false;
+        for (Column column : new ArrayList<>(columnQuerySummaryStatsMap.keySet())) {
+            getUnsharedSummaryStats(columnQuerySummaryStatsMap, column).setNumHistogramBins(numBins);
+        }
+    }
+
+    // the result of the latest evaluation (call on the FX thread)
+    public QueryResult getResult() {
+        if (!resultCurrent || result == null) {
+            result = new QueryResult(dataModel.nextQueryResultVersion(), rowCount, (BitSet)queriedRows.clone(), queriedRowCount,
+                    new HashMap<>(columnQuerySummaryStatsMap), new HashMap<>(columnNonquerySummaryStatsMap));
+            resultCurrent = true;
         }
+        return result;
+    }
+
+    // the column's statistics in the map, replaced by a copy if the latest result holds them
+    private ColumnSummaryStats getUnsharedSummaryStats(Map<Column, ColumnSummaryStats> summaryStatsMap, Column column) {
+        ColumnSummaryStats summaryStats = summaryStatsMap.get(column);
+        if (summaryStats != null && result != null && result.holds(summaryStats)) {
+            summaryStats = summaryStats.copy();
+            summaryStatsMap.put(column, summaryStats);
+        }
+        return summaryStats;
     }
 
     public void calculateStatistics() {
+        calculateStatistics(dataModel.getColumns());
+    }
+
+    // calculates the query statistics of the given columns (e.g., a column that was enabled) and the
+    // correlations, which depend on all of the enabled columns
+    void calculateStatistics(List<Column> columns) {
         long start = System.currentTimeMillis();
+        resultCurrent = false;
 
-        for (int icolumn = 0; icolumn < dataModel.getColumnCount(); icolumn++) {
-            Column column = dataModel.getColumn(icolumn);
-            ColumnSummaryStats queryColumnSummaryStats = columnQuerySummaryStatsMap.get(column);
-            ColumnSummaryStats nonqueryColumnSummaryStats = columnNonquerySummaryStatsMap.get(column);
+        // the statistics keep the rows they were computed from, so they get copies that later evaluations do not modify
+        ArrayList<Supplier<Runnable>> statisticsTasks = createStatisticsTasks(columns, (BitSet)queriedRows.clone(),
+                (BitSet)nonQueriedRows.clone(), rowCount, columnQuerySummaryStatsMap, columnNonquerySummaryStatsMap);
+        dataModel.calculateStatistics(statisticsTasks);
+
+        updateCorrelations();
+
+        long elapsed = System.currentTimeMillis() - start;
+//        log.info("calculateStatistics() took " + elapsed + "ms");
+    }
+
+    // creates or removes the summary stats objects of the columns in the maps here and returns the tasks that
+    // compute their values over the queried and nonqueried rows
+    private ArrayList<Supplier<Runnable>> createStatisticsTasks(List<Column> columns, BitSet queriedRows, BitSet nonQueriedRows,
+                                                                int rowCount, Map<Column, ColumnSummaryStats> querySummaryStatsMap,
+                                                                Map<Column, ColumnSummaryStats> nonquerySummaryStatsMap) {
+        ArrayList<Supplier<Runnable>> statisticsTasks = new ArrayList<>();
+
+        for (Column column : columns) {
+            ColumnSummaryStats queryColumnSummaryStats = getUnsharedSummaryStats(querySummaryStatsMap, column);
+            ColumnSummaryStats nonqueryColumnSummaryStats = getUnsharedSummaryStats(nonquerySummaryStatsMap, column);
 
             if (column instanceof TemporalColumn) {
-                Instant queriedValues[] = ((TemporalColumn)column).getQueriedValues();
+                long values[] = ((TemporalColumn)column).getEpochMilliArray();
                 if (queryColumnSummaryStats == null) {
                     queryColumnSummaryStats = new TemporalColumnSummaryStats(column, dataModel.getNumHistogramBins(), this);
-                    columnQuerySummaryStatsMap.put(column, queryColumnSummaryStats);
+                    querySummaryStatsMap.put(column, queryColumnSummaryStats);
                 }
-                ((TemporalColumnSummaryStats)queryColumnSummaryStats).setValues(queriedValues);
+                TemporalColumnSummaryStats temporalQueryStats = (TemporalColumnSummaryStats)queryColumnSummaryStats;
+                statisticsTasks.add(() -> temporalQueryStats.prepareValues(TemporalColumn.getEpochMilliValues(values, queriedRows, 0, rowCount),
+                        queriedRows, temporalQueryStats.getNumHistogramBins()));
 
-                Instant nonqueriedValues[] = ((TemporalColumn)column).getNonqueriedValues();
                 if (nonqueryColumnSummaryStats == null) {
                     nonqueryColumnSummaryStats = new TemporalColumnSummaryStats(column, dataModel.getNumHistogramBins(), this);
-                    columnNonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
+                    nonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
                 }
-                ((TemporalColumnSummaryStats)nonqueryColumnSummaryStats).setValues(nonqueriedValues);
+                TemporalColumnSummaryStats temporalNonqueryStats = (TemporalColumnSummaryStats)nonqueryColumnSummaryStats;
+                statisticsTasks.add(() -> temporalNonqueryStats.prepareValues(TemporalColumn.getEpochMilliValues(values, nonQueriedRows, 0, rowCount),
+                        nonQueriedRows, temporalNonqueryStats.getNumHistogramBins()));
             } else if (column instanceof DoubleColumn) {
+                double values[] = ((DoubleColumn)column).getValueArray();
                 if (dataModel.getCalculateQueryStatistics()) {
-                    double queriedValues[] = ((DoubleColumn) column).getQueriedValues();
                     if (queryColumnSummaryStats == null) {
                         queryColumnSummaryStats = new DoubleColumnSummaryStats(column, dataModel.getNumHistogramBins(), this);
-                        columnQuerySummaryStatsMap.put(column, queryColumnSummaryStats);
+                        querySummaryStatsMap.put(column, queryColumnSummaryStats);
                     }
-                    ((DoubleColumnSummaryStats) queryColumnSummaryStats).setValues(queriedValues);
+                    DoubleColumnSummaryStats doubleQueryStats = (DoubleColumnSummaryStats)queryColumnSummaryStats;
+                    statisticsTasks.add(() -> doubleQueryStats.prepareValues(DoubleColumn.getValues(values, queriedRows, 0, rowCount),
+                            queriedRows, doubleQueryStats.getNumHistogramBins()));
                 } else {
-                    columnQuerySummaryStatsMap.remove(column);
+                    querySummaryStatsMap.remove(column);
                 }
 
                 if (dataModel.getCalculateNonQueryStatistics()) {
-                    double nonqueriedValues[] = ((DoubleColumn) column).getNonqueriedValues();
                     if (nonqueryColumnSummaryStats == null) {
                         nonqueryColumnSummaryStats = new DoubleColumnSummaryStats(column, dataModel.getNumHistogramBins(), this);
-                        columnNonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
+                        nonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
                     }
-                    ((DoubleColumnSummaryStats) nonqueryColumnSummaryStats).setValues(nonqueriedValues);
+                    DoubleColumnSummaryStats doubleNonqueryStats = (DoubleColumnSummaryStats)nonqueryColumnSummaryStats;
+                    statisticsTasks.add(() -> doubleNonqueryStats.prepareValues(DoubleColumn.getValues(values, nonQueriedRows, 0, rowCount),
+                            nonQueriedRows, doubleNonqueryStats.getNumHistogramBins()));
                 } else {
-                    columnNonquerySummaryStatsMap.remove(column);
+                    nonquerySummaryStatsMap.remove(column);
                 }
             } else if (column instanceof CategoricalColumn) {
-                String queriedValues[] = ((CategoricalColumn)column).getQueriedValues();
+                int categoryIDs[] = ((CategoricalColumn)column).getCategoryIDArray();
                 if (queryColumnSummaryStats == null) {
                     queryColumnSummaryStats = new CategoricalColumnSummaryStats(column, this);
-                    columnQuerySummaryStatsMap.put(column, queryColumnSummaryStats);
+                    querySummaryStatsMap.put(column, queryColumnSummaryStats);
                 }
-                ((CategoricalColumnSummaryStats)queryColumnSummaryStats).setValues(queriedValues);
+                CategoricalColumnSummaryStats categoricalQueryStats = (CategoricalColumnSummaryStats)queryColumnSummaryStats;
+                statisticsTasks.add(() -> categoricalQueryStats.prepareCategoryIDs(CategoricalColumn.getCategoryIDs(categoryIDs, queriedRows, 0, rowCount)));
 
-                String nonqueriedValues[] = ((CategoricalColumn)column).getNonqueriedValues();
                 if (nonqueryColumnSummaryStats == null) {
                     nonqueryColumnSummaryStats = new CategoricalColumnSummaryStats(column, this);
-                    columnNonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
+                    nonquerySummaryStatsMap.put(column, nonqueryColumnSummaryStats);
                 }
-                ((CategoricalColumnSummaryStats)nonqueryColumnSummaryStats).setValues(nonqueriedValues);
+                CategoricalColumnSummaryStats categoricalNonqueryStats = (CategoricalColumnSummaryStats)nonqueryColumnSummaryStats;
+                statisticsTasks.add(() -> categoricalNonqueryStats.prepareCategoryIDs(CategoricalColumn.getCategoryIDs(categoryIDs, nonQueriedRows, 0, rowCount)));
             }
         }
-        long elapsed = System.currentTimeMillis() - start;
-//        log.info("calculateStatistics() took " + elapsed + "ms");
+        return statisticsTasks;
+    }
+
+    // merges the values of the appended rows into the query and nonquery statistics; the statistics are
+    // calculated from all rows if a column does not have the statistics objects it needs yet
+    private void appendStatistics(int fromRow, int toRow) {
+        ArrayList<Supplier<Runnable>> statisticsTasks = new ArrayList<>();
+        BitSet queriedRows = (BitSet)this.queriedRows.clone();
+        BitSet nonQueriedRows = (BitSet)this.nonQueriedRows.clone();
+
+        for (Column column : dataModel.getColumns()) {
+            ColumnSummaryStats queryColumnSummaryStats = getUnsharedSummaryStats(columnQuerySummaryStatsMap, column);
+            ColumnSummaryStats nonqueryColumnSummaryStats = getUnsharedSummaryStats(columnNonquerySummaryStatsMap, column);
+
+            if (column instanceof TemporalColumn) {
+                if (queryColumnSummaryStats == null || nonqueryColumnSummaryStats == null) {
+                    calculateStatistics();
+                    return;
+                }
+                TemporalColumn temporalColumn = (TemporalColumn)column;
+                TemporalColumnSummaryStats temporalQueryStats = (TemporalColumnSummaryStats)queryColumnSummaryStats;
+                statisticsTasks.add(() -> temporalQueryStats.prepareAppendedValues(
+                        temporalColumn.getEpochMilliValues(queriedRows, fromRow, toRow), queriedRows));
+                TemporalColumnSummaryStats temporalNonqueryStats = (TemporalColumnSummaryStats)nonqueryColumnSummaryStats;
+                statisticsTasks.add(() -> temporalNonqueryStats.prepareAppendedValues(
+                        temporalColumn.getEpochMilliValues(nonQueriedRows, fromRow, toRow), nonQueriedRows));
+            } else if (column instanceof DoubleColumn) {
+                if ((queryColumnSummaryStats != null) != dataModel.getCalculateQueryStatistics() ||
+                        (nonqueryColumnSummaryStats != null) != dataModel.getCalculateNonQueryStatistics()) {
+                    calculateStatistics();
+                    return;
+                }
+                DoubleColumn doubleColumn = (DoubleColumn)column;
+                if (queryColumnSummaryStats != null) {
+                    DoubleColumnSummaryStats doubleQueryStats = (DoubleColumnSummaryStats)queryColumnSummaryStats;
+                    statisticsTasks.add(() -> doubleQueryStats.prepareAppendedValues(
+                            doubleColumn.getValues(queriedRows, fromRow, toRow), queriedRows));
+                }
+                if (nonqueryColumnSummaryStats != null) {
+                    DoubleColumnSummaryStats doubleNonqueryStats = (DoubleColumnSummaryStats)nonqueryColumnSummaryStats;
+                    statisticsTasks.add(() -> doubleNonqueryStats.prepareAppendedValues(
+                            doubleColumn.getValues(nonQueriedRows, fromRow, toRow), nonQueriedRows));
+                }
+            } else if (column instanceof CategoricalColumn) {
+                if (queryColumnSummaryStats == null || nonqueryColumnSummaryStats == null) {
+                    calculateStatistics();
+                    return;
+                }
+                CategoricalColumn categoricalColumn = (CategoricalColumn)column;
+                CategoricalColumnSummaryStats categoricalQueryStats = (CategoricalColumnSummaryStats)queryColumnSummaryStats;
+                statisticsTasks.add(() -> categoricalQueryStats.prepareAppendedCategoryIDs(
+                        categoricalColumn.getCategoryIDs(queriedRows, fromRow, toRow)));
+                CategoricalColumnSummaryStats categoricalNonqueryStats = (CategoricalColumnSummaryStats)nonqueryColumnSummaryStats;
+                statisticsTasks.add(() -> categoricalNonqueryStats.prepareAppendedCategoryIDs(
+                        categoricalColumn.getCategoryIDs(nonQueriedRows, fromRow, toRow)));
+            }
+        }
+
+        dataModel.calculateStatistics(statisticsTasks);
+
+        updateCorrelations();
+    }
+
+    // recomputes the correlation lists after the query or the set of enabled columns changed
+    void updateCorrelations() {
+        queryCorrelationMatrix = null;
+        nonqueryCorrelationMatrix = null;
+        setCorrelationCoefficientLists();
+    }
+
+    // the correlation lists of the query statistics are rows of the shared correlation matrices, in the
+    // current column order (the matrices are keyed by column, so a new column order only reorders the lists)
+    void setCorrelationCoefficientLists() {
+        resultCurrent = false;
+        for (int icolumn = 0; icolumn < dataModel.getColumnCount(); icolumn++) {
+            Column column = dataModel.getColumn(icolumn);
+            if (column instanceof DoubleColumn) {
+                ColumnSummaryStats queryColumnSummaryStats = getUnsharedSummaryStats(columnQuerySummaryStatsMap, column);
+                if (queryColumnSummaryStats != null) {
+                    ((DoubleColumnSummaryStats)queryColumnSummaryStats).setCorrelationCoefficientList(
+                            getQueryCorrelationMatrix().getCorrelations(column, dataModel.getColumns()));
+                }
+                ColumnSummaryStats nonqueryColumnSummaryStats = getUnsharedSummaryStats(columnNonquerySummaryStatsMap, column);
+                if (nonqueryColumnSummaryStats != null) {
+                    ((DoubleColumnSummaryStats)nonqueryColumnSummaryStats).setCorrelationCoefficientList(
+                            getNonqueryCorrelationMatrix().getCorrelations(column, dataModel.getColumns()));
+                }
+            }
+        }
+    }
+
+    public CorrelationMatrix getQueryCorrelationMatrix() {
+        if (queryCorrelationMatrix == null) {
+            queryCorrelationMatrix = new CorrelationMatrix(getQueryCorrelationSums(), queriedRows, rowCount);
+        }
+        return queryCorrelationMatrix;
+    }
+
+    public CorrelationMatrix getNonqueryCorrelationMatrix() {
+        if (nonqueryCorrelationMatrix == null) {
+            CorrelationSums totalCorrelationSums = dataModel.getCorrelationSums();
+            CorrelationSums nonqueryCorrelationSums;
+            if (totalCorrelationSums.getCount() == rowCount && totalCorrelationSums.isFinite()) {
+                // the nonqueried rows are all rows except the queried rows
+                nonqueryCorrelationSums = totalCorrelationSums.subtract(getQueryCorrelationSums());
+            } else {
+                nonqueryCorrelationSums = CorrelationSums.compute(totalCorrelationSums.getColumns(), nonQueriedRows,
+                        rowCount, totalCorrelationSums.getShifts());
+            }
+            nonqueryCorrelationMatrix = new CorrelationMatrix(nonqueryCorrelationSums, nonQueriedRows, rowCount);
+        }
+        return nonqueryCorrelationMatrix;
+    }
+
+    // 2D histogram of the two numeric or temporal columns over the queried rows (null if either column
+    // has no histogram bins)
+    public Histogram2D getQueryHistogram2D(Column xColumn, Column yColumn) {
+        return Histogram2D.getCached(queryHistogram2DMap, xColumn, yColumn, queriedRows, rowCount, dataModel.getNumHistogramBins());
+    }
+
+    // 2D histogram of the two columns over the nonqueried rows: all rows minus the queried rows
+    public Histogram2D getNonqueryHistogram2D(Column xColumn, Column yColumn) {
+        if (rowCount != dataModel.getTupleCount()) {
+            return Histogram2D.build(xColumn, yColumn, nonQueriedRows, rowCount, dataModel.getNumHistogramBins());
+        }
+        Histogram2D totalHistogram2D = dataModel.getHistogram2D(xColumn, yColumn);
+        Histogram2D queryHistogram2D = getQueryHistogram2D(xColumn, yColumn);
+        if (totalHistogram2D == null || queryHistogram2D == null) {
+            return null;
+        }
+        return totalHistogram2D.subtract(queryHistogram2D);
+    }
+
+    private CorrelationSums getQueryCorrelationSums() {
+        CorrelationSums totalCorrelationSums = dataModel.getCorrelationSums();
+        if (queryCorrelationSums != null && !queryCorrelationSums.hasLayout(totalCorrelationSums.getColumns(), totalCorrelationSums.getShifts()) &&
+                queryCorrelationSums.containsColumns(totalCorrelationSums.getColumns())) {
+            // a disabled column is dropped from the sums
+            queryCorrelationSums = queryCorrelationSums.select(totalCorrelationSums.getColumns());
+        }
+        if (queryCorrelationSums == null ||
+                !queryCorrelationSums.hasLayout(totalCorrelationSums.getColumns(), totalCorrelationSums.getShifts())) {
+            queryCorrelationSums = CorrelationSums.compute(totalCorrelationSums.getColumns(), queriedRows, rowCount,
+                    totalCorrelationSums.getShifts());
+            correlationSumsFlippedRowCount = 0;
+        }
+        return queryCorrelationSums;
+    }
+
+    // a copy of the query's correlation sums in the layout of the table's sums, or null if they can't be copied
+    private CorrelationSums copyQueryCorrelationSums(CorrelationSums totalCorrelationSums) {
+        if (queryCorrelationSums == null || !queryCorrelationSums.containsColumns(totalCorrelationSums.getColumns())) {
+            return null;
+        }
+        CorrelationSums correlationSums = queryCorrelationSums.select(totalCorrelationSums.getColumns());
+        return correlationSums.hasLayout(totalCorrelationSums.getColumns(), totalCorrelationSums.getShifts()) ?
+                correlationSums : null;
+    }
+
+    // adds the rows that entered the query to the correlation sums and subtracts the rows that left it;
+    // the sums are dropped (and rebuilt on demand) when a full pass would be cheaper or more accurate
+    private void updateQueryCorrelationSums(BitSet previousQueriedRows) {
+        BitSet flippedRows = previousQueriedRows;
+        flippedRows.xor(queriedRows);
+        int flippedRowCount = flippedRows.cardinality();
+        correlationSumsFlippedRowCount += flippedRowCount;
+        queryCorrelationSums = updateCorrelationSums(queryCorrelationSums, flippedRows, flippedRowCount,
+                correlationSumsFlippedRowCount, queriedRows, queriedRowCount, rowCount);
+    }
+
+    // the sums updated with the flipped rows (the sums are modified), or null if they are to be rebuilt because
+    // more rows flipped than are queried or the rows flipped since the last rebuild add up to the number of rows
+    private static CorrelationSums updateCorrelationSums(CorrelationSums correlationSums, BitSet flippedRows,
+                                                         int flippedRowCount, long totalFlippedRowCount,
+                                                         BitSet queriedRows, int queriedRowCount, int rowCount) {
+        if (flippedRowCount > queriedRowCount || totalFlippedRowCount > rowCount) {
+            return null;
+        }
+
+        correlationSums.update(flippedRows, queriedRows);
+        return correlationSums.isFinite() ? correlationSums : null;
     }
 
     public final ObservableList<ColumnSelection> getColumnSelections() { return columnSelections.get(); }
@@ -209,6 +985,7 @@ public class Query {
     }
 
     public void setColumnQuerySummaryStats(Column column, ColumnSummaryStats querySummaryStats) {
+        resultCurrent = false;
         columnQuerySummaryStatsMap.put(column, querySummaryStats);
     }
 
@@ -225,7 +1002,13 @@ public class Query {
     }
 
     public void clear () {
+        resultCurrent = false;
         columnSelections.clear();
+        queryCorrelationMatrix = null;
+        nonqueryCorrelationMatrix = null;
+        columnPassMasks.clear();
+        columnRangeMaskStates.clear();
+        invalidatedColumns.clear();
         columnQuerySummaryStatsMap.clear();
         columnNonquerySummaryStatsMap.clear();
     }
@@ -281,4 +1064,47 @@ public class Query {
 
         return null;
     }
-}
\ No newline at end of file
+
+    private static class RangeMaskState {
+        SortedRowIndex sortedRowIndex;
+        int lowerPosition;
+        int upperPosition;
+
+        RangeMaskState(SortedRowIndex sortedRowIndex, int lowerPosition, int upperPosition) {
+            this.sortedRowIndex = sortedRowIndex;
+            this.lowerPosition = lowerPosition;
+            this.upperPosition = upperPosition;
+        }
+    }
+
+    // evaluates a row predicate over a range of rows and sets the bits of the passing rows; the range is
+    // split at multiples of 64 so every task writes its own words of the mask
+    private static class PassMaskTask extends RecursiveAction {
+        private IntPredicate rowPredicate;
+        private long words[];
+        private int fromRow;
+        private int toRow;
+
+        PassMaskTask(IntPredicate rowPredicate, long words[], int fromRow, int toRow) {
+            this.rowPredicate = rowPredicate;
+            this.words = words;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= PARALLEL_QUERY_CHUNK_SIZE || getPool() == null) {
+                for (int row = fromRow; row < toRow; row++) {
+                    if (rowPredicate.test(row)) {
+                        words[row >>> 6] |= 1L << row;
+                    }
+                }
+            } else {
+                int midRow = ((fromRow + toRow) >>> 1) & ~63;
+                invokeAll(new PassMaskTask(rowPredicate, words, fromRow, midRow),
+                        new PassMaskTask(rowPredicate, words, midRow, toRow));
+            }
+        }
+    }
+}
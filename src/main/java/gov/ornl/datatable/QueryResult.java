@@ -0,0 +1,95 @@
+package gov.ornl.datatable;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * A versioned result of a query's evaluation: a copy of the queried rows and the query and nonquery
+ * summary statistics of the columns. The query hands out a new result once its rows or statistics
+ * changed, with a version that is higher than that of any earlier result of the data table's queries,
+ * so a view can keep the result it drew and skip a redraw while the active query's result has the same
+ * version. The rows and the maps of a result are not modified after it is handed out; the statistics
+ * objects are the query's (JavaFX properties), which the query copies before it updates statistics a
+ * result holds, but they are not immutable and should only be read on the FX thread.
+ */
+public class QueryResult {
+    private final long version;
+    private final int rowCount;
+    private final BitSet queriedRows;
+    private final int queriedRowCount;
+    private final Map<Column, ColumnSummaryStats> columnQuerySummaryStatsMap;
+    private final Map<Column, ColumnSummaryStats> columnNonquerySummaryStatsMap;
+
+    QueryResult(long version, int rowCount, BitSet queriedRows, int queriedRowCount,
+                Map<Column, ColumnSummaryStats> columnQuerySummaryStatsMap,
+                Map<Column, ColumnSummaryStats> columnNonquerySummaryStatsMap) {
+        this.version = version;
+        this.rowCount = rowCount;
+        this.queriedRows = queriedRows;
+        this.queriedRowCount = queriedRowCount;
+        this.columnQuerySummaryStatsMap = columnQuerySummaryStatsMap;
+        this.columnNonquerySummaryStatsMap = columnNonquerySummaryStatsMap;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // number of rows in the data table when the query was evaluated
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getQueriedTupleCount() {
+        return queriedRowCount;
+    }
+
+    public int getNonQueriedTupleCount() {
+        return rowCount - queriedRowCount;
+    }
+
+    public boolean getQueryFlag(int row) {
+        return row < rowCount ? queriedRows.get(row) : true;
+    }
+
+    // returns a copy of the bitset of queried row indices
+    public BitSet getQueriedRows() {
+        return (BitSet)queriedRows.clone();
+    }
+
+    public ColumnSummaryStats getColumnQuerySummaryStats(Column column) {
+        return columnQuerySummaryStatsMap.get(column);
+    }
+
+    public ColumnSummaryStats getColumnNonquerySummaryStats(Column column) {
+        return columnNonquerySummaryStatsMap.get(column);
+    }
+
+    Map<Column, ColumnSummaryStats> getColumnQuerySummaryStatsMap() {
+        return columnQuerySummaryStatsMap;
+    }
+
+    Map<Column, ColumnSummaryStats> getColumnNonquerySummaryStatsMap() {
+        return columnNonquerySummaryStatsMap;
+    }
+
+    // estimated memory (in bytes) of the result: its rows, the query and nonquery rows kept by the
+    // statistics, and the values kept by the statistics
+    long getEstimatedSize() {
+        long size = 3L * 8L * ((rowCount + 63) >>> 6);
+        for (ColumnSummaryStats summaryStats : columnQuerySummaryStatsMap.values()) {
+            size += summaryStats.getEstimatedSize();
+        }
+        for (ColumnSummaryStats summaryStats : columnNonquerySummaryStatsMap.values()) {
+            size += summaryStats.getEstimatedSize();
+        }
+        return size;
+    }
+
+    // true if the statistics object belongs to this result
+    boolean holds(ColumnSummaryStats summaryStats) {
+        ColumnSummaryStats querySummaryStats = columnQuerySummaryStatsMap.get(summaryStats.getColumn());
+        ColumnSummaryStats nonquerySummaryStats = columnNonquerySummaryStatsMap.get(summaryStats.getColumn());
+        return querySummaryStats == summaryStats || nonquerySummaryStats == summaryStats;
+    }
+}
@@ -0,0 +1,83 @@
+package gov.ornl.datatable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A least recently used cache of query results by the canonical state of the query (its selections and
+ * the table state the results depend on), bounded by the estimated memory of the results instead of
+ * their number. Going back to a brush state that is in the cache (e.g., toggling between selections or
+ * undoing a change) restores its rows and statistics without evaluating the query again. The cached
+ * results are immutable snapshots (see QueryResult), so a cached result is never modified by the
+ * query it was restored to.
+ */
+class QueryResultCache {
+    private long capacity;
+    private long size = 0;
+    // results by key, in access order
+    private LinkedHashMap<Object, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    QueryResultCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    QueryResult get(Object key) {
+        CachedResult cachedResult = results.get(key);
+        return cachedResult == null ? null : cachedResult.result;
+    }
+
+    void put(Object key, QueryResult result) {
+        remove(key);
+        long resultSize = result.getEstimatedSize();
+        if (resultSize > capacity) {
+            return;
+        }
+        results.put(key, new CachedResult(result, resultSize));
+        size += resultSize;
+        evict();
+    }
+
+    void clear() {
+        results.clear();
+        size = 0;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    void setCapacity(long capacity) {
+        this.capacity = capacity;
+        evict();
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    private void remove(Object key) {
+        CachedResult cachedResult = results.remove(key);
+        if (cachedResult != null) {
+            size -= cachedResult.size;
+        }
+    }
+
+    // drops the least recently used results until the cached results fit in the capacity
+    private void evict() {
+        Iterator<CachedResult> iterator = results.values().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    private static class CachedResult {
+        QueryResult result;
+        long size;
+
+        CachedResult(QueryResult result, long size) {
+            this.result = result;
+            this.size = size;
+        }
+    }
+}
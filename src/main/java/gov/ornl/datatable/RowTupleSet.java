@@ -0,0 +1,61 @@
+package gov.ornl.datatable;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only Set<Tuple> view of a bitset of row indices. The tuples are created on demand
+ * while iterating (in row order) and contains() is a single bit test.
+ */
+class RowTupleSet extends AbstractSet<Tuple> {
+    private DataTable dataTable;
+    private BitSet rows;
+
+    RowTupleSet(DataTable dataTable, BitSet rows) {
+        this.dataTable = dataTable;
+        this.rows = rows;
+    }
+
+    @Override
+    public int size() {
+        return rows.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Tuple)) {
+            return false;
+        }
+        Tuple tuple = (Tuple)object;
+        return tuple.getDataTable() == dataTable && rows.get(tuple.getRow());
+    }
+
+    @Override
+    public Iterator<Tuple> iterator() {
+        return new Iterator<Tuple>() {
+            int nextRow = rows.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return nextRow >= 0;
+            }
+
+            @Override
+            public Tuple next() {
+                if (nextRow < 0) {
+                    throw new NoSuchElementException();
+                }
+                Tuple tuple = new Tuple(dataTable, nextRow);
+                nextRow = rows.nextSetBit(nextRow + 1);
+                return tuple;
+            }
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package gov.ornl.datatable;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A query saved by the data table as the bitset of its member rows, so any number of queries can be
+ * kept and compared. Saved queries are combined with bitset operations (union, intersection, and
+ * difference) instead of evaluating selections again, and the statistics of all saved queries are
+ * computed together with one pass over the rows of each column (see statisticsTask). The histogram
+ * bin counts of numeric and temporal columns are counted when they are read, so a new bin count
+ * does not rescan the rows of every saved query.
+ */
+public class SavedQuery {
+    public enum SetOperation { UNION, INTERSECTION, DIFFERENCE }
+
+    private String id;
+    // member rows of the data table (rows appended after the query was saved are not members)
+    private BitSet rows;
+    private int rowCount;
+
+    // statistics of the member rows by column (calculated by the data table)
+    private HashMap<Column, ColumnStatistics> columnStatisticsMap = new HashMap<>();
+
+    SavedQuery(String id, BitSet rows) {
+        this.id = id;
+        this.rows = rows;
+        rowCount = rows.cardinality();
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    // returns the bitset of member row indices (the bitset is owned by the saved query and must not be modified)
+    public BitSet getRows() {
+        return rows;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean contains(int row) {
+        return rows.get(row);
+    }
+
+    // statistics of the member rows of the column (null if the column has none, e.g., an image column)
+    public ColumnStatistics getColumnStatistics(Column column) {
+        return columnStatisticsMap.get(column);
+    }
+
+    // the rows of this query combined with the rows of the other query
+    SavedQuery combine(String id, SetOperation operation, SavedQuery other) {
+        BitSet combinedRows = (BitSet)rows.clone();
+        switch (operation) {
+            case UNION:
+                combinedRows.or(other.rows);
+                break;
+            case INTERSECTION:
+                combinedRows.and(other.rows);
+                break;
+            case DIFFERENCE:
+                combinedRows.andNot(other.rows);
+                break;
+        }
+        return new SavedQuery(id, combinedRows);
+    }
+
+    // renumbers the member rows after the data table kept only the given rows (compacted in row order)
+    void retainRows(BitSet rowsToKeep) {
+        BitSet retainedRows = new BitSet();
+        int newRow = 0;
+        for (int row = rowsToKeep.nextSetBit(0); row >= 0; row = rowsToKeep.nextSetBit(row + 1)) {
+            if (rows.get(row)) {
+                retainedRows.set(newRow);
+            }
+            newRow++;
+        }
+        rows = retainedRows;
+        rowCount = rows.cardinality();
+        columnStatisticsMap.clear();
+    }
+
+    // computes the column's statistics for all of the saved queries with a single pass over the rows that are
+    // in at least one query (each value is read once and added to the statistics of each query that has the
+    // row), and returns the step that publishes them; categorical rows are counted by category in the same pass
+    static Supplier<Runnable> statisticsTask(List<SavedQuery> savedQueries, Column column, int rowCount) {
+        return () -> {
+            int numQueries = savedQueries.size();
+            long queryWords[][] = new long[numQueries][];
+            BitSet anyQueryRows = new BitSet();
+            for (int i = 0; i < numQueries; i++) {
+                queryWords[i] = savedQueries.get(i).rows.toLongArray();
+                anyQueryRows.or(savedQueries.get(i).rows);
+            }
+
+            ColumnStatistics statistics[] = new ColumnStatistics[numQueries];
+            for (int i = 0; i < numQueries; i++) {
+                statistics[i] = new ColumnStatistics(column, savedQueries.get(i).rows);
+            }
+
+            for (int row = anyQueryRows.nextSetBit(0); row >= 0 && row < rowCount; row = anyQueryRows.nextSetBit(row + 1)) {
+                double value;
+                int bin;
+                if (column instanceof DoubleColumn) {
+                    value = ((DoubleColumn)column).getDoubleValue(row);
+                    bin = -1;
+                } else if (column instanceof TemporalColumn) {
+                    value = ((TemporalColumn)column).getEpochMilli(row);
+                    bin = -1;
+                } else {
+                    value = Double.NaN;
+                    bin = ((CategoricalColumn)column).getCategoryID(row);
+                }
+
+                int word = row >>> 6;
+                long bit = 1L << row;
+                for (int i = 0; i < numQueries; i++) {
+                    if (word < queryWords[i].length && (queryWords[i][word] & bit) != 0) {
+                        statistics[i].add(value, bin);
+                    }
+                }
+            }
+
+            return () -> {
+                for (int i = 0; i < numQueries; i++) {
+                    savedQueries.get(i).columnStatisticsMap.put(column, statistics[i]);
+                }
+            };
+        };
+    }
+
+    /**
+     * Statistics of the member rows of a saved query for one column: the row count, the mean, standard
+     * deviation, minimum, and maximum of the values that are not NaN (temporal values are epoch
+     * milliseconds; categorical columns only have counts), and the row count of each histogram bin
+     * (of each category for a categorical column). The bins of a numeric or temporal column are the
+     * bins of the column's current histogram; they are counted from the column's bin index when they
+     * are first read after the bin count or the column range changed.
+     */
+    public static class ColumnStatistics {
+        private Column column;
+        private BitSet rows;
+        private int count = 0;
+        private int valueCount = 0;
+        private double mean = 0.;
+        // sum of the squared deviations from the mean
+        private double m2 = 0.;
+        private double minValue = Double.NaN;
+        private double maxValue = Double.NaN;
+        // the bin index the bins were counted from (numeric and temporal columns)
+        private BinIndex binIndex;
+        private int binCounts[];
+
+        ColumnStatistics(Column column, BitSet rows) {
+            this.column = column;
+            this.rows = rows;
+            binCounts = new int[column instanceof CategoricalColumn ? ((CategoricalColumn)column).getCategories().size() : 0];
+        }
+
+        // counts the rows in the bins of the column's current histogram unless they were counted from its current bin index
+        private void updateBins() {
+            if (column instanceof CategoricalColumn) {
+                return;
+            }
+            BinIndex currentBinIndex = Histogram2D.getBinIndex(column, column.getDataTable().getNumHistogramBins());
+            if (currentBinIndex != binIndex || binIndex == null) {
+                binIndex = currentBinIndex;
+                binCounts = binIndex == null ? new int[0] : binIndex.countBins(rows);
+            }
+        }
+
+        private void add(double value, int bin) {
+            count++;
+            if (bin >= 0 && bin < binCounts.length) {
+                binCounts[bin]++;
+            }
+            if (Double.isNaN(value)) {
+                return;
+            }
+            valueCount++;
+            double delta = value - mean;
+            mean += delta / valueCount;
+            m2 += delta * (value - mean);
+            minValue = Double.isNaN(minValue) || value < minValue ? value : minValue;
+            maxValue = Double.isNaN(maxValue) || value > maxValue ? value : maxValue;
+        }
+
+        public Column getColumn() {
+            return column;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return valueCount == 0 ? Double.NaN : mean;
+        }
+
+        public double getStandardDeviation() {
+            return valueCount == 0 ? Double.NaN : valueCount == 1 ? 0. : Math.sqrt(m2 / (valueCount - 1));
+        }
+
+        public double getMinValue() {
+            return minValue;
+        }
+
+        public double getMaxValue() {
+            return maxValue;
+        }
+
+        public int getNumBins() {
+            updateBins();
+            return binCounts.length;
+        }
+
+        public int getBinCount(int bin) {
+            updateBins();
+            return binCounts[bin];
+        }
+
+        // the lower bound of a numeric or temporal bin (NaN for a categorical column)
+        public double getBinLowerBound(int bin) {
+            updateBins();
+            if (binIndex == null) {
+                return Double.NaN;
+            }
+            return binIndex.getLowerBound() + bin * ((binIndex.getUpperBound() - binIndex.getLowerBound()) / binCounts.length);
+        }
+
+        public double getBinUpperBound(int bin) {
+            return getBinLowerBound(bin + 1);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package gov.ornl.datatable;
+
+/**
+ * A range index over the values of a numeric or temporal column: the row indices sorted by value
+ * together with the sorted values. Range selections are answered by binary searching the bounds
+ * and reading the rows between them instead of scanning the whole column. Rows with equal values
+ * are kept in ascending row order so the index is deterministic.
+ */
+class SortedRowIndex {
+    private int sortedRows[];
+    private double sortedDoubleValues[];
+    private long sortedLongValues[];
+    // number of sorted values that are not NaN (NaN values are sorted to the end)
+    private int searchableCount;
+
+    private SortedRowIndex() { }
+
+    static SortedRowIndex build(double values[], int size) {
+        SortedRowIndex index = new SortedRowIndex();
+        index.sortedDoubleValues = new double[size];
+        index.sortedRows = new int[size];
+        for (int row = 0; row < size; row++) {
+            index.sortedDoubleValues[row] = values[row];
+            index.sortedRows[row] = row;
+        }
+        sort(index.sortedDoubleValues, index.sortedRows);
+
+        index.searchableCount = size;
+        while (index.searchableCount > 0 && Double.isNaN(index.sortedDoubleValues[index.searchableCount - 1])) {
+            index.searchableCount--;
+        }
+        return index;
+    }
+
+    static SortedRowIndex build(long values[], int size) {
+        SortedRowIndex index = new SortedRowIndex();
+        index.sortedLongValues = new long[size];
+        index.sortedRows = new int[size];
+        for (int row = 0; row < size; row++) {
+            index.sortedLongValues[row] = values[row];
+            index.sortedRows[row] = row;
+        }
+        sort(index.sortedLongValues, index.sortedRows);
+        index.searchableCount = size;
+        return index;
+    }
+
+    int size() {
+        return sortedRows.length;
+    }
+
+    // the values in ascending order of a temporal column's index (owned by the index, must not be modified)
+    long[] getSortedLongValues() {
+        return sortedLongValues;
+    }
+
+    // row index of the value at the given position of the sorted order
+    int getRow(int position) {
+        return sortedRows[position];
+    }
+
+    // first sorted position whose value is >= minValue
+    int lowerBound(double minValue) {
+        if (Double.isNaN(minValue)) {
+            return searchableCount;
+        }
+        int low = 0, high = searchableCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedDoubleValues[mid] < minValue) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first sorted position whose value is > maxValue (NaN values are never below the bound)
+    int upperBound(double maxValue) {
+        if (Double.isNaN(maxValue)) {
+            return 0;
+        }
+        int low = 0, high = searchableCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedDoubleValues[mid] <= maxValue) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first sorted position whose value is >= minValue
+    int lowerBound(long minValue) {
+        int low = 0, high = searchableCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedLongValues[mid] < minValue) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first sorted position whose value is > maxValue
+    int upperBound(long maxValue) {
+        int low = 0, high = searchableCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedLongValues[mid] <= maxValue) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // stable bottom-up merge sort of the keys, moving the rows along with them
+    private static void sort(double keys[], int rows[]) {
+        int n = keys.length;
+        double keyBuffer[] = new double[n];
+        int rowBuffer[] = new int[n];
+        double srcKeys[] = keys, dstKeys[] = keyBuffer;
+        int srcRows[] = rows, dstRows[] = rowBuffer;
+
+        for (int width = 1; width < n; width *= 2) {
+            for (int left = 0; left < n; left += 2 * width) {
+                int mid = Math.min(left + width, n);
+                int right = Math.min(left + 2 * width, n);
+                int i = left, j = mid, k = left;
+                while (i < mid && j < right) {
+                    if (Double.compare(srcKeys[j], srcKeys[i]) < 0) {
+                        dstKeys[k] = srcKeys[j];
+                        dstRows[k++] = srcRows[j++];
+                    } else {
+                        dstKeys[k] = srcKeys[i];
+                        dstRows[k++] = srcRows[i++];
+                    }
+                }
+                while (i < mid) {
+                    dstKeys[k] = srcKeys[i];
+                    dstRows[k++] = srcRows[i++];
+                }
+                while (j < right) {
+                    dstKeys[k] = srcKeys[j];
+                    dstRows[k++] = srcRows[j++];
+                }
+            }
+            double tempKeys[] = srcKeys; srcKeys = dstKeys; dstKeys = tempKeys;
+            int tempRows[] = srcRows; srcRows = dstRows; dstRows = tempRows;
+        }
+
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcRows, 0, rows, 0, n);
+        }
+    }
+
+    private static void sort(long keys[], int rows[]) {
+        int n = keys.length;
+        long keyBuffer[] = new long[n];
+        int rowBuffer[] = new int[n];
+        long srcKeys[] = keys, dstKeys[] = keyBuffer;
+        int srcRows[] = rows, dstRows[] = rowBuffer;
+
+        for (int width = 1; width < n; width *= 2) {
+            for (int left = 0; left < n; left += 2 * width) {
+                int mid = Math.min(left + width, n);
+                int right = Math.min(left + 2 * width, n);
+                int i = left, j = mid, k = left;
+                while (i < mid && j < right) {
+                    if (srcKeys[j] < srcKeys[i]) {
+                        dstKeys[k] = srcKeys[j];
+                        dstRows[k++] = srcRows[j++];
+                    } else {
+                        dstKeys[k] = srcKeys[i];
+                        dstRows[k++] = srcRows[i++];
+                    }
+                }
+                while (i < mid) {
+                    dstKeys[k] = srcKeys[i];
+                    dstRows[k++] = srcRows[i++];
+                }
+                while (j < right) {
+                    dstKeys[k] = srcKeys[j];
+                    dstRows[k++] = srcRows[j++];
+                }
+            }
+            long tempKeys[] = srcKeys; srcKeys = dstKeys; dstKeys = tempKeys;
+            int tempRows[] = srcRows; srcRows = dstRows; dstRows = tempRows;
+        }
+
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcRows, 0, rows, 0, n);
+        }
+    }
+}
@@ -5,8 +5,16 @@ import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
 
 public class TemporalColumn extends Column {
+    // instants are stored as milliseconds since the epoch
+    private long values[] = new long[0];
+    // lazily built index of the rows sorted by value (used to evaluate range selections)
+    private SortedRowIndex sortedRowIndex;
+    // bin of each row for the most recent histogram range and bin count
+    private BinIndex binIndex;
     private TemporalColumnSummaryStats summaryStats;
     private ObjectProperty<Instant> startScaleValue = new SimpleObjectProperty<>(null);
     private ObjectProperty<Instant> endScaleValue = new SimpleObjectProperty<>(null);
@@ -17,18 +25,72 @@ public class TemporalColumn extends Column {
         super(name);
     }
 
-    public boolean setFocusContext(Tuple tuple, int elementIdx) {
-        if (((Instant)tuple.getElement(elementIdx)).isAfter(getEndFocusValue())) {
-            getUpperContextTuples().add(tuple);
+    protected boolean setFocusContext(int row) {
+        long value = values[row];
+        if (value > toEpochMilliFloor(getEndFocusValue())) {
+            setRowInUpperContext(row);
             return false;
-        } else if (((Instant)tuple.getElement(elementIdx)).isBefore(getStartFocusValue())) {
-            getLowerContextTuples().add(tuple);
+        } else if (value < toEpochMilliCeiling(getStartFocusValue())) {
+            setRowInLowerContext(row);
             return false;
         }
-        getFocusTuples().add(tuple);
+        setRowInFocus(row);
         return true;
     }
 
+    // largest epoch millisecond that is not after the instant
+    static long toEpochMilliFloor(Instant instant) {
+        return instant.toEpochMilli();
+    }
+
+    // smallest epoch millisecond that is not before the instant
+    static long toEpochMilliCeiling(Instant instant) {
+        long epochMilli = instant.toEpochMilli();
+        if (instant.getNano() % 1000000 != 0) {
+            epochMilli++;
+        }
+        return epochMilli;
+    }
+
+    public long getEpochMilli(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Instant getValue(int row) {
+        return Instant.ofEpochMilli(values[row]);
+    }
+
+    @Override
+    protected void addValue(Object value) {
+        addValue(((Instant)value).toEpochMilli());
+    }
+
+    protected void addValue(long epochMilli) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, growCapacity(values.length, size + 1));
+        }
+        values[size++] = epochMilli;
+        resetIndices();
+    }
+
+    @Override
+    protected void retainRows(BitSet rows) {
+        int newSize = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            values[newSize++] = values[row];
+        }
+        size = newSize;
+        resetIndices();
+    }
+
+    @Override
+    protected void clearValues() {
+        values = new long[0];
+        size = 0;
+        resetIndices();
+    }
+
     public Instant getStartFocusValue() { return startFocusValue.get(); }
 
     protected void setStartFocusValue(Instant instant) { startFocusValue.set(instant); }
@@ -65,82 +127,155 @@ public class TemporalColumn extends Column {
 
     public ReadOnlyObjectProperty<Instant> endScaleValueProperty() { return endScaleValue; }
 
-    public void calculateStatistics() {
-        if (summaryStats == null) {
-            summaryStats = new TemporalColumnSummaryStats(this, getDataTable().getNumHistogramBins(), null);
+    // the index is shared by the column and query statistics, which may be calculated on different threads
+    synchronized BinIndex getBinIndex(Instant startInstant, Instant endInstant, int numBins) {
+        if (binIndex == null || !binIndex.matches(startInstant, endInstant, numBins, size)) {
+            binIndex = BinIndex.build(values, size, startInstant, endInstant, numBins);
         }
-        summaryStats.setValues(getValues(), getDataTable().getNumHistogramBins());
+        return binIndex;
+    }
 
-        if (getStartScaleValue() == null) {
-            setStartScaleValue(summaryStats.getStartInstant());
-        }
+    // the indices are reset under the lock of getBinIndex and getSortedRowIndex, so an index built from the
+    // previous rows is not kept
+    private synchronized void resetIndices() {
+        sortedRowIndex = null;
+        binIndex = null;
+    }
 
-        if (getEndScaleValue() == null) {
-            setEndScaleValue(summaryStats.getEndInstant());
+    // the index is shared by the synchronous and the asynchronous query evaluations, which run on different threads
+    synchronized SortedRowIndex getSortedRowIndex() {
+        if (sortedRowIndex == null) {
+            sortedRowIndex = SortedRowIndex.build(values, size);
         }
+        return sortedRowIndex;
+    }
 
-        if (getStartFocusValue() == null) {
-            setStartFocusValue(summaryStats.getStartInstant());
+    protected Runnable prepareStatistics() {
+        if (summaryStats == null) {
+            summaryStats = new TemporalColumnSummaryStats(this, getDataTable().getNumHistogramBins(), null);
         }
+        return publishStatistics(summaryStats.prepareValues(getEpochMilliValues(), getAllRows(), getDataTable().getNumHistogramBins()));
+    }
 
-        if (getEndFocusValue() == null) {
-            setEndFocusValue(summaryStats.getEndInstant());
+    @Override
+    protected Runnable prepareAppendedStatistics(int fromRow) {
+        if (summaryStats == null) {
+            return prepareStatistics();
         }
+        return publishStatistics(summaryStats.prepareAppendedValues(Arrays.copyOfRange(values, fromRow, size), getAllRows()));
     }
 
-    public Instant[] getFocusValues() {
-        int columnIndex = getDataTable().getColumnIndex(this);
-        if (columnIndex == -1) {
-            columnIndex = getDataTable().getDisabledColumns().indexOf(this);
-        }
+    // publishes the summary statistics and initializes the scale and focus extents that are not set yet
+    private Runnable publishStatistics(Runnable publishSummaryStats) {
+        return () -> {
+            publishSummaryStats.run();
+
+            if (getStartScaleValue() == null) {
+                setStartScaleValue(summaryStats.getStartInstant());
+            }
 
-        Instant[] values = new Instant[getFocusTuples().size()];
+            if (getEndScaleValue() == null) {
+                setEndScaleValue(summaryStats.getEndInstant());
+            }
+
+            if (getStartFocusValue() == null) {
+                setStartFocusValue(summaryStats.getStartInstant());
+            }
+
+            if (getEndFocusValue() == null) {
+                setEndFocusValue(summaryStats.getEndInstant());
+            }
+        };
+    }
+
+    public Instant[] getFocusValues() {
+        BitSet focusRows = getFocusRows();
+        Instant[] focusValues = new Instant[focusRows.cardinality()];
         int counter = 0;
-        for (Tuple focusTuple : getFocusTuples()) {
-            values[counter++] = (Instant)focusTuple.getElement(columnIndex);
+        for (int row = focusRows.nextSetBit(0); row >= 0; row = focusRows.nextSetBit(row + 1)) {
+            focusValues[counter++] = Instant.ofEpochMilli(values[row]);
         }
 
-        return values;
+        return focusValues;
     }
 
     public Instant[] getValues() {
-        Instant[] values = new Instant[getDataTable().getTupleCount()];
-        int columnIndex = getDataTable().getColumnIndex(this);
-        for (int i = 0; i < getDataTable().getTupleCount(); i++) {
-            values[i] = (Instant) getDataTable().getTuple(i).getElement(columnIndex);
+        Instant[] instants = new Instant[size];
+        for (int i = 0; i < size; i++) {
+            instants[i] = Instant.ofEpochMilli(values[i]);
         }
 
+        return instants;
+    }
+
+    public long[] getEpochMilliValues() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // the column's value array without a copy (it may be longer than the number of rows and must not be modified)
+    long[] getEpochMilliArray() {
         return values;
     }
 
-    public Instant[] getQueriedValues() {
-        if (getDataTable().getActiveQuery().getQueriedTuples().isEmpty()) {
+    public long[] getQueriedEpochMilliValues() {
+        Query query = getDataTable().getActiveQuery();
+        if (query.getQueriedTupleCount() == 0) {
+            return null;
+        }
+        return getEpochMilliValues(query.getQueriedRows(), query.getQueriedTupleCount());
+    }
+
+    public long[] getNonqueriedEpochMilliValues() {
+        Query query = getDataTable().getActiveQuery();
+        if (query.getNonQueriedTupleCount() == 0) {
             return null;
         }
+        return getEpochMilliValues(query.getNonQueriedRows(), query.getNonQueriedTupleCount());
+    }
 
-        Instant[] values = new Instant[getDataTable().getActiveQuery().getQueriedTuples().size()];
-        int columnIndex = getDataTable().getColumnIndex(this);
+    // values of the rows in [fromRow, toRow) that are set in rows (e.g., the appended rows of a query)
+    long[] getEpochMilliValues(BitSet rows, int fromRow, int toRow) {
+        return getEpochMilliValues(values, rows, fromRow, toRow);
+    }
+
+    // values of the rows in [fromRow, toRow) of a value array (e.g., an array captured for a worker thread)
+    static long[] getEpochMilliValues(long values[], BitSet rows, int fromRow, int toRow) {
+        long rowValues[] = new long[rows.get(fromRow, toRow).cardinality()];
         int counter = 0;
-        for (Tuple tuple : getDataTable().getActiveQuery().getQueriedTuples()) {
-            values[counter++] = (Instant)tuple.getElement(columnIndex);
+        for (int row = rows.nextSetBit(fromRow); row >= 0 && row < toRow; row = rows.nextSetBit(row + 1)) {
+            rowValues[counter++] = values[row];
         }
+        return rowValues;
+    }
 
-        return values;
+    private long[] getEpochMilliValues(BitSet rows, int rowCount) {
+        long rowValues[] = new long[rowCount];
+        int counter = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            rowValues[counter++] = values[row];
+        }
+
+        return rowValues;
+    }
+
+    public Instant[] getQueriedValues() {
+        return toInstants(getQueriedEpochMilliValues());
     }
 
     public Instant[] getNonqueriedValues() {
-        if (getDataTable().getActiveQuery().getNonQueriedTuples().isEmpty()) {
+        return toInstants(getNonqueriedEpochMilliValues());
+    }
+
+    private static Instant[] toInstants(long epochMilliValues[]) {
+        if (epochMilliValues == null) {
             return null;
         }
 
-        Instant[] values = new Instant[getDataTable().getActiveQuery().getNonQueriedTuples().size()];
-        int columnIndex = getDataTable().getColumnIndex(this);
-        int counter = 0;
-        for (Tuple tuple : getDataTable().getActiveQuery().getNonQueriedTuples()) {
-            values[counter++] = (Instant)tuple.getElement(columnIndex);
+        Instant[] instants = new Instant[epochMilliValues.length];
+        for (int i = 0; i < epochMilliValues.length; i++) {
+            instants[i] = Instant.ofEpochMilli(epochMilliValues[i]);
         }
-
-        return values;
+        return instants;
     }
 
     public TemporalColumnSummaryStats getStatistics () {
@@ -6,6 +6,8 @@ import javafx.beans.property.SimpleObjectProperty;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
 
 public class TemporalColumnSummaryStats extends ColumnSummaryStats {
     private SimpleObjectProperty<Instant> startInstant;
@@ -13,7 +15,10 @@ public class TemporalColumnSummaryStats extends ColumnSummaryStats {
     private SimpleObjectProperty<LocalDateTime> startLocalDateTime;
     private SimpleObjectProperty<LocalDateTime> endLocalDateTime;
     private SimpleObjectProperty<TemporalHistogram> histogram;
-    private Instant[] values;
+    // instants as milliseconds since the epoch
+    private long[] values;
+    // rows of the column the values were taken from (null if the values are not rows of the column)
+    private BitSet rows;
 
 
     public TemporalColumnSummaryStats(Column column, int numHistogramBins, Query query) {
@@ -27,14 +32,64 @@ public class TemporalColumnSummaryStats extends ColumnSummaryStats {
         setEndInstant(endInstant);
     }
 
-    public void setValues(Instant[] values, int numHistogramBins) {
+    public void setValues(long[] values, int numHistogramBins) {
+        prepareValues(values, null, numHistogramBins).run();
+    }
+
+    // the histogram of values taken from the given rows is counted from the column's bin index
+    protected Runnable prepareValues(long[] values, BitSet rows, int numHistogramBins) {
         this.values = values;
+        this.rows = rows;
         this.numHistogramBins = numHistogramBins;
-        calculateStatistics();
+        return prepareStatistics();
     }
 
-    public void setValues(Instant[] values) {
+    // extends the range with the appended values (e.g., of rows appended to the table) instead of a pass over
+    // all of the values; the histogram only counts the appended values when its bins did not change
+    protected Runnable prepareAppendedValues(long[] appendedValues, BitSet rows) {
+        long[] previousValues = values == null ? new long[0] : values;
+        values = Arrays.copyOf(previousValues, previousValues.length + appendedValues.length);
+        System.arraycopy(appendedValues, 0, values, previousValues.length, appendedValues.length);
+        this.rows = rows;
+
+        Instant start = previousValues.length > 0 ? getStartInstant() : null;
+        Instant end = previousValues.length > 0 ? getEndInstant() : null;
+        if (previousValues.length > 0 && (start == null || end == null)) {
+            return prepareStatistics();
+        }
+        for (long value : appendedValues) {
+            if (start == null || value < start.toEpochMilli()) {
+                start = Instant.ofEpochMilli(value);
+            }
+            if (end == null || value > end.toEpochMilli()) {
+                end = Instant.ofEpochMilli(value);
+            }
+        }
+
+        Instant histogramStart = query == null ? start : temporalColumn().getStatistics().getStartInstant();
+        Instant histogramEnd = query == null ? end : temporalColumn().getStatistics().getEndInstant();
+        TemporalHistogram previousHistogram = getHistogram();
+        TemporalHistogram newHistogram;
+        if (previousHistogram != null && previousHistogram.getNumBins() == numHistogramBins && histogramStart != null &&
+                histogramEnd != null && histogramStart.equals(previousHistogram.getStartInstant()) &&
+                histogramEnd.equals(previousHistogram.getEndInstant())) {
+            newHistogram = previousHistogram.append(values, appendedValues);
+        } else {
+            newHistogram = createHistogram(histogramStart, histogramEnd);
+        }
+
+        final Instant startInstant = start;
+        final Instant endInstant = end;
+        return () -> {
+            setStartInstant(startInstant);
+            setEndInstant(endInstant);
+            setHistogram(newHistogram);
+        };
+    }
+
+    public void setValues(long[] values) {
         this.values = values;
+        rows = null;
 
 //        numHistogramBins = (int)Math.floor(Math.sqrt(values.length));
 //        if (numHistogramBins > MAX_NUM_HISTOGRAM_BINS) {
@@ -44,36 +99,42 @@ public class TemporalColumnSummaryStats extends ColumnSummaryStats {
         calculateStatistics();
     }
 
-    public Instant[] getValues() {
+    public long[] getValues() {
         return values;
     }
 
     @Override
-    public void calculateStatistics() {
+    protected Runnable prepareStatistics() {
         Instant start = null;
         Instant end = null;
 
 //        int columnIndex = getColumn().getDataTable().getColumnIndex(column);
 
-        if (values != null) {
-            for (int i = 0; i < values.length; i++) {
-                Instant instant = values[i];
-                if (i == 0) {
-                    start = end = instant;
-                } else {
-                    if (instant.isBefore(start)) {
-                        start = instant;
-                    } else if (instant.isAfter(end)) {
-                        end = instant;
-                    }
+        if (values != null && values.length > 0) {
+            long startMillis = values[0];
+            long endMillis = values[0];
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] < startMillis) {
+                    startMillis = values[i];
+                } else if (values[i] > endMillis) {
+                    endMillis = values[i];
                 }
             }
+            start = Instant.ofEpochMilli(startMillis);
+            end = Instant.ofEpochMilli(endMillis);
         }
 
-        setStartInstant(start);
-        setEndInstant(end);
+        // the column statistics bin over their own range, query statistics over the column range
+        TemporalHistogram newHistogram = query == null ? createHistogram(start, end) :
+                createHistogram(temporalColumn().getStatistics().getStartInstant(), temporalColumn().getStatistics().getEndInstant());
 
-        calculateHistogram();
+        final Instant startInstant = start;
+        final Instant endInstant = end;
+        return () -> {
+            setStartInstant(startInstant);
+            setEndInstant(endInstant);
+            setHistogram(newHistogram);
+        };
     }
 
     private TemporalColumn temporalColumn() {
@@ -82,9 +143,43 @@ public class TemporalColumnSummaryStats extends ColumnSummaryStats {
 
     @Override
     public void calculateHistogram() {
-        setHistogram(new TemporalHistogram(column.getName(), values, numHistogramBins,
-                temporalColumn().getStatistics().getStartInstant(),
-                temporalColumn().getStatistics().getEndInstant()));
+        Instant start = temporalColumn().getStatistics().getStartInstant();
+        Instant end = temporalColumn().getStatistics().getEndInstant();
+
+        // a new bin count of the column histogram is counted from the column's sorted values
+        if (query == null && rows != null) {
+            int binCounts[] = TemporalHistogram.countSortedBins(temporalColumn().getSortedRowIndex().getSortedLongValues(),
+                    numHistogramBins, start, end);
+            if (binCounts != null) {
+                setHistogram(new TemporalHistogram(column.getName(), values, numHistogramBins, start, end, binCounts));
+                return;
+            }
+        }
+        setHistogram(createHistogram(start, end));
+    }
+
+    @Override
+    protected TemporalColumnSummaryStats copy() {
+        TemporalColumnSummaryStats copy = new TemporalColumnSummaryStats(column, numHistogramBins, query);
+        copy.values = values;
+        copy.rows = rows;
+        copy.setStartInstant(getStartInstant());
+        copy.setEndInstant(getEndInstant());
+        copy.setHistogram(getHistogram());
+        return copy;
+    }
+
+    @Override
+    long getEstimatedSize() {
+        return (values == null ? 0 : 8L * values.length) + 4L * numHistogramBins;
+    }
+
+    private TemporalHistogram createHistogram(Instant startInstant, Instant endInstant) {
+        BinIndex binIndex = rows == null ? null : temporalColumn().getBinIndex(startInstant, endInstant, numHistogramBins);
+        if (binIndex != null) {
+            return new TemporalHistogram(column.getName(), values, numHistogramBins, startInstant, endInstant, binIndex.countBins(rows));
+        }
+        return new TemporalHistogram(column.getName(), values, numHistogramBins, startInstant, endInstant);
     }
 
     public TemporalHistogram getHistogram() {
@@ -6,47 +6,45 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalUnit;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.function.LongPredicate;
 
 public class TemporalHistogram extends Histogram {
-    public Instant values[];
-    public Tuple tuples[] = null;
+    // instants as milliseconds since the epoch
+    private long values[];
     private int numBins;
     private Duration binDuration;
 
-//    private int binCounts[];
-    private Bin bins[];
+    private int binCounts[];
     private int maxBinCount;
 
     private Instant startInstant;
     private Instant endInstant;
     private Duration histogramDuration;
 
-    public TemporalHistogram(String name, Instant values[], Tuple tuples[], int numBins, Instant startInstant,
-                             Instant endInstant){
+    public TemporalHistogram(String name, long values[], int numBins) {
         super(name);
+
         this.values = values;
-        this.tuples = tuples;
         this.numBins = numBins;
 
-        this.startInstant = Instant.from(startInstant);
-        this.endInstant = Instant.from(endInstant);
-
         calculate();
     }
 
-    public TemporalHistogram(String name, Instant values[], int numBins) {
+    public TemporalHistogram(String name, long values[], int numBins, Instant startInstant, Instant endInstant) {
         super(name);
 
         this.values = values;
         this.numBins = numBins;
 
+        this.startInstant = Instant.from(startInstant);
+        this.endInstant = Instant.from(endInstant);
+
         calculate();
     }
 
-    public TemporalHistogram(String name, Instant values[], int numBins, Instant startInstant, Instant endInstant) {
+    // a histogram whose bins were already counted (e.g., from a column's bin index)
+    TemporalHistogram(String name, long values[], int numBins, Instant startInstant, Instant endInstant, int binCounts[]) {
         super(name);
 
         this.values = values;
@@ -55,19 +53,77 @@ public class TemporalHistogram extends Histogram {
         this.startInstant = Instant.from(startInstant);
         this.endInstant = Instant.from(endInstant);
 
-        calculate();
+        histogramDuration = Duration.between(startInstant, endInstant);
+        binDuration = histogramDuration.dividedBy(numBins);
+        this.binCounts = binCounts;
+        maxBinCount = 0;
+        for (int binCount : binCounts) {
+            if (binCount > maxBinCount) {
+                maxBinCount = binCount;
+            }
+        }
     }
 
-    public int getBinCount(int i) {
-        return bins[i].binValues.size();
+    // counts the bins of values in ascending order with a binary search per bin boundary (see
+    // DoubleHistogram.countSortedBins); returns null if the bins can not be searched
+    static int[] countSortedBins(long sortedValues[], int numBins, Instant startInstant, Instant endInstant) {
+        if (numBins <= 0 || startInstant == null || endInstant == null) {
+            return null;
+        }
+        long startMillis = startInstant.toEpochMilli();
+        long endMillis = endInstant.toEpochMilli();
+        long binMillis = Duration.between(startInstant, endInstant).dividedBy(numBins).toMillis();
+        if (binMillis <= 0) {
+            return null;
+        }
+        // the bin indices are cast to int, which is only monotone while they stay in the int range
+        if (sortedValues.length > 0 && ((sortedValues[0] - startMillis) / binMillis < Integer.MIN_VALUE ||
+                (sortedValues[sortedValues.length - 1] - startMillis) / binMillis > Integer.MAX_VALUE)) {
+            return null;
+        }
+
+        int binCounts[] = new int[numBins];
+        int binStart = firstIndex(sortedValues, 0, sortedValues.length, value -> (int)((value - startMillis) / binMillis) >= 0);
+        for (int i = 0; i < numBins; i++) {
+            final int nextBin = i + 1;
+            int binEnd = firstIndex(sortedValues, binStart, sortedValues.length, value -> (int)((value - startMillis) / binMillis) >= nextBin);
+            binCounts[i] = binEnd - binStart;
+            binStart = binEnd;
+        }
+
+        // values past the last bin that are equal to the end instant go in the last bin
+        int endStart = firstIndex(sortedValues, binStart, sortedValues.length, value -> value >= endMillis);
+        int endEnd = firstIndex(sortedValues, endStart, sortedValues.length, value -> value > endMillis);
+        binCounts[numBins - 1] += endEnd - endStart;
+        return binCounts;
+    }
+
+    // first index in [from, to) whose value satisfies the predicate (which holds for all larger values)
+    private static int firstIndex(long sortedValues[], int from, int to, LongPredicate predicate) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (predicate.test(sortedValues[mid])) {
+                to = mid;
+            } else {
+                from = mid + 1;
+            }
+        }
+        return from;
     }
 
-    public List<Instant> getBinValues(int i) {
-        return bins[i].binValues;
+    // the histogram over the same bins with appended values counted in (allValues includes the appended values),
+    // so only the appended values are binned
+    TemporalHistogram append(long allValues[], long appendedValues[]) {
+        TemporalHistogram appendedHistogram = new TemporalHistogram(getName(), appendedValues, numBins, startInstant, endInstant);
+        int appendedBinCounts[] = binCounts.clone();
+        for (int i = 0; i < numBins; i++) {
+            appendedBinCounts[i] += appendedHistogram.binCounts[i];
+        }
+        return new TemporalHistogram(getName(), allValues, numBins, startInstant, endInstant, appendedBinCounts);
     }
 
-    public List<Tuple> getBinTuples(int i) {
-        return bins[i].binTuples;
+    public int getBinCount(int i) {
+        return binCounts[i];
     }
 
     public Instant getBinLowerBound(int i) {
@@ -95,15 +151,8 @@ public class TemporalHistogram extends Histogram {
         calculate();
     }
 
-    public void setValues (Instant values[]) {
+    public void setValues (long values[]) {
         this.values = values;
-        this.tuples = null;
-        calculate();
-    }
-
-    public void setValues (Instant values[], Tuple tuples[]) {
-        this.values = values;
-        this.tuples = tuples;
         calculate();
     }
 
@@ -122,18 +171,19 @@ public class TemporalHistogram extends Histogram {
     }
 
     private void calculateRange() {
+        long start = 0;
+        long end = 0;
         for (int i = 0; i < values.length; i++) {
             if (i == 0) {
-                startInstant = values[i];
-                endInstant = values[i];
-            } else {
-                if (values[i].isBefore(startInstant)) {
-                    startInstant = values[i];
-                } else if (values[i].isAfter(endInstant)) {
-                    endInstant = values[i];
-                }
+                start = end = values[i];
+            } else if (values[i] < start) {
+                start = values[i];
+            } else if (values[i] > end) {
+                end = values[i];
             }
         }
+        startInstant = Instant.ofEpochMilli(start);
+        endInstant = Instant.ofEpochMilli(end);
     }
 
     private Pair<ChronoUnit, Long> findBestTemporalUnit(Duration duration, int numBins) {
@@ -189,60 +239,37 @@ public class TemporalHistogram extends Histogram {
 
         binDuration = histogramDuration.dividedBy(numBins);
 
-
-//        binCounts = new int[numBins];
-//        Arrays.fill(binCounts, 0);
-        bins = new Bin[numBins];
-        for (int i = 0; i < bins.length; i++) {
-            bins[i] = new Bin();
-        }
+        binCounts = new int[numBins];
+        Arrays.fill(binCounts, 0);
         maxBinCount = 0;
 
         if (values != null) {
+            long startMillis = startInstant.toEpochMilli();
+            long endMillis = endInstant.toEpochMilli();
+            long binMillis = binDuration.toMillis();
+
             for (int ivalue = 0; ivalue < values.length; ivalue++) {
-                Instant value = values[ivalue];
+                long value = values[ivalue];
 
-                Duration valueOffsetDuration = Duration.between(startInstant, value);
-                int binIndex = (int) (valueOffsetDuration.toMillis() / binDuration.toMillis());
+                int binIndex = (int) ((value - startMillis) / binMillis);
 
                 if (binIndex < 0) {
                     // the value is smaller than the minValue
                 } else if (binIndex >= numBins) {
                     // if the value is equal to the max value increment the last bin
-                    if (value.equals(endInstant)) {
-                        bins[numBins - 1].binValues.add(value);
-                        if (tuples != null) {
-                            bins[numBins - 1].binTuples.add(tuples[ivalue]);
-                        }
-
-                        if (bins[numBins-1].binValues.size() > maxBinCount) {
-                            maxBinCount = bins[numBins-1].binValues.size();
+                    if (value == endMillis) {
+                        binCounts[numBins - 1]++;
+                        if (binCounts[numBins - 1] > maxBinCount) {
+                            maxBinCount = binCounts[numBins - 1];
                         }
-
-//                        binCounts[numBins - 1]++;
-//                        if (binCounts[numBins - 1] > maxBinCount) {
-//                            maxBinCount = binCounts[numBins - 1];
-//                        }
                     }
                 } else {
-                    bins[binIndex].binValues.add(value);
-                    if (tuples != null) {
-                        bins[binIndex].binTuples.add(tuples[ivalue]);
-                    }
-                    if (bins[binIndex].binValues.size() > maxBinCount) {
-                        maxBinCount = bins[binIndex].binValues.size();
+                    binCounts[binIndex]++;
+                    if (binCounts[binIndex] > maxBinCount) {
+                        maxBinCount = binCounts[binIndex];
                     }
-//                    binCounts[binIndex]++;
-//                    if (binCounts[binIndex] > maxBinCount) {
-//                        maxBinCount = binCounts[binIndex];
-//                    }
                 }
             }
         }
     }
-
-    class Bin {
-        public ArrayList<Instant> binValues = new ArrayList<>();
-        public ArrayList<Tuple> binTuples = new ArrayList<>();
-    }
 }
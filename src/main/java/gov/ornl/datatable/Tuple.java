@@ -1,131 +1,74 @@
 package gov.ornl.datatable;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 
+/**
+ * A lightweight view of one row of a DataTable. The values are not stored in the
+ * tuple; they are read from the column value arrays using the row index.
+ */
 public class Tuple implements Serializable {
 	private DataTable dataTable;
-	private ArrayList<Object> elements = new ArrayList<>();
-	private boolean queryFlag = true;
-	private int orderFactor = 0;
+	private int row;
 
-	public Tuple(DataTable dataTable) {
+	public Tuple(DataTable dataTable, int row) {
 		this.dataTable = dataTable;
+		this.row = row;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
+	public DataTable getDataTable() {
+		return dataTable;
 	}
 
 	public boolean isElementInFocus(int elementIndex) {
-		return dataTable.getColumn(elementIndex).getFocusTuples().contains(this);
+		return dataTable.getColumn(elementIndex).isRowInFocus(row);
 	}
 
 	public boolean isElementInLowerContext(int elementIndex) {
-		return dataTable.getColumn(elementIndex).getLowerContextTuples().contains(this);
+		return dataTable.getColumn(elementIndex).isRowInLowerContext(row);
 	}
 
 	public boolean isElementInUpperContext(int elementIndex) {
-		return dataTable.getColumn(elementIndex).getUpperContextTuples().contains(this);
+		return dataTable.getColumn(elementIndex).isRowInUpperContext(row);
 	}
 
-//	public Tuple createCopy() {
-//		Tuple copyTuple = new Tuple();
-//		for (Object element : elements) {
-//			copyTuple.addElement(element);
-//		}
-//		return copyTuple;
-//	}
-
-    public Tuple (Tuple copyTuple) {
-        for (int i = 0; i < copyTuple.getElementCount(); i++) {
-            elements.add(copyTuple.getElement(i));
-        }
-    }
-
     public Object[] getElementsAsArray() {
-		Object elementArray [] = new Object[elements.size()];
-        elements.toArray(elementArray);
+		Object elementArray [] = new Object[getElementCount()];
+		for (int i = 0; i < elementArray.length; i++) {
+			elementArray[i] = getElement(i);
+		}
         return elementArray;
     }
 
-    public void removeAllElements() {
-        elements.clear();
-    }
-
-	public void removeElement(int index) {
-		elements.remove(index);
-	}
-
-	public void moveElement(int currentElementIndex, int newElementIndex) {
-		if (currentElementIndex == newElementIndex) {
-			return;
-		}
-
-		Object tmp = elements.get(currentElementIndex);
-		if (currentElementIndex < newElementIndex) {
-			for (int i = currentElementIndex; i < newElementIndex; i++) {
-				elements.set(i, elements.get(i + 1));
-			}
-		} else {
-			for (int i = currentElementIndex; i > newElementIndex; i--) {
-				elements.set(i, elements.get(i - 1));
-			}
-		}
-		elements.set(newElementIndex, tmp);
-	}
-
-	public void setElement(int idx, Object value) {
-		elements.set(idx, value);
-	}
-
-	public void addElement(Object value) {
-		elements.add(value);
-	}
-
-	public void addElement(int idx, Object value) {
-		elements.add(idx, value);
-	}
-
-	public boolean equals(Tuple tuple) {
-		if (tuple.getElementCount() == this.getElementCount()) {
-			for (int i = 0; i < this.getElementCount(); i++) {
-				if (tuple.getElement(i) != this.getElement(i)) {
-					return false;
-				}
-			}
-			return true;
-		}
-		return false;
-	}
-
 	public Object getElement(int idx) {
-		return elements.get(idx);
+		return dataTable.getColumn(idx).getValue(row);
 	}
 
 	public int getElementCount() {
-		return elements.size();
-	}
-
-	public void setQueryFlag(boolean enabled) {
-		queryFlag = enabled;
+		return dataTable.getColumnCount();
 	}
 
 	public boolean getQueryFlag() {
-		return queryFlag;
-	}
-
-	public void setOrderFactor(int order) {
-		orderFactor = order;
+		return dataTable.getActiveQuery().getQueryFlag(row);
 	}
 
-	public int getOrderFactor() {
-		return orderFactor;
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof Tuple)) {
+			return false;
+		}
+		Tuple tuple = (Tuple)object;
+		return tuple.row == row && tuple.dataTable == dataTable;
 	}
 
-	public int compareTo(Object object) {
-		int otherOrderFactor = ((Tuple) object).getOrderFactor();
-		if (orderFactor < otherOrderFactor) {
-			return 1;
-		} else if (orderFactor > otherOrderFactor) {
-			return -1;
-		}
-		return 0;
+	@Override
+	public int hashCode() {
+		return row;
 	}
 }
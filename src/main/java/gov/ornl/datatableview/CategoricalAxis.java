@@ -196,7 +196,8 @@ public class CategoricalAxis extends UnivariateAxis {
 
             double lastRectangleBottomY = getMaxFocusPosition();
 
-            List<String> categories = histogram.getCategories();
+            // sort a copy, the histogram shares the column's category list (its order defines the category ids)
+            List<String> categories = new ArrayList<>(histogram.getCategories());
             if (isCategoryHeightProportionalToCount()) {
                 categories.sort((o1, o2) -> histogram.getCategoryCount(o2) - histogram.getCategoryCount(o1));
             } else {
@@ -299,8 +300,8 @@ public class CategoricalAxis extends UnivariateAxis {
             nonQueryCategoriesRectangleGroup.getChildren().clear();
             nonQueryCategoriesRectangleMap.clear();
 
-            if (getDataTable().getActiveQuery().hasColumnSelections()) {
-                CategoricalColumnSummaryStats queryColumnSummaryStats = (CategoricalColumnSummaryStats)getDataTable().getActiveQuery().getColumnQuerySummaryStats(getColumn());
+            CategoricalColumnSummaryStats queryColumnSummaryStats = (CategoricalColumnSummaryStats)getDataTableView().getQueryResult().getColumnQuerySummaryStats(getColumn());
+            if (getDataTable().getActiveQuery().hasColumnSelections() && queryColumnSummaryStats != null) {
                 CategoricalHistogram queryHistogram = queryColumnSummaryStats.getHistogram();
 
                 for (String category : queryHistogram.getCategories()) {
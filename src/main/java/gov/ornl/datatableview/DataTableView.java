@@ -17,6 +17,7 @@ import javafx.scene.transform.Scale;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -78,6 +79,10 @@ public class DataTableView extends Region implements DataTableListener {
 
     private HashSet<TuplePolyline> unselectedTuplePolylines = new HashSet<>();
     private HashSet<TuplePolyline> selectedTuplePolylines = new HashSet<>();
+    // the result of the active query the view is drawn from and the version of the result the polyline sets
+    // were filled from
+    private QueryResult queryResult;
+    private long tupleSetsVersion = -1;
 
     private ObjectProperty<STATISTICS_DISPLAY_MODE> summaryStatisticsDisplayMode = new SimpleObjectProperty<>(STATISTICS_DISPLAY_MODE.MEAN_BOXPLOT);
 
@@ -410,14 +415,30 @@ public class DataTableView extends Region implements DataTableListener {
         });
     }
 
+    // the axes read the query statistics from the result the view is drawn from
+    QueryResult getQueryResult() {
+        if (queryResult == null) {
+            queryResult = dataTable.getActiveQuery().getResult();
+        }
+        return queryResult;
+    }
+
+    // holds the latest result of the active query (the same result, with the same version, while the query
+    // did not change)
+    private void updateQueryResult() {
+        queryResult = dataTable.getActiveQuery().getResult();
+    }
+
     private void fillTupleSets() {
         unselectedTuplePolylines.clear();
         selectedTuplePolylines.clear();
+        updateQueryResult();
+        tupleSetsVersion = queryResult.getVersion();
 
         if ((tuplePolylines != null) && (!tuplePolylines.isEmpty())) {
             if (dataTable.getActiveQuery().hasColumnSelections()) {
                 for (TuplePolyline pcpTuple : tuplePolylines) {
-                    if (pcpTuple.getTuple().getQueryFlag()) {
+                    if (queryResult.getQueryFlag(pcpTuple.getTuple().getRow())) {
                         selectedTuplePolylines.add(pcpTuple);
                     } else {
                         unselectedTuplePolylines.add(pcpTuple);
@@ -491,36 +512,41 @@ public class DataTableView extends Region implements DataTableListener {
     public final int getAxisCount() { return axisList.size(); }
 
     private void drawTuplePolylines() {
-        selectedCanvas.getGraphicsContext2D().setLineCap(StrokeLineCap.BUTT);
         selectedCanvas.getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+        unselectedCanvas.getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+        drawTuplePolylines(selectedTuplePolylines, unselectedTuplePolylines);
+    }
+
+    // draws the polylines over the current contents of the canvases
+    private void drawTuplePolylines(Collection<TuplePolyline> selectedPolylines, Collection<TuplePolyline> unselectedPolylines) {
+        selectedCanvas.getGraphicsContext2D().setLineCap(StrokeLineCap.BUTT);
         selectedCanvas.getGraphicsContext2D().setLineWidth(getPolylineWidth());
         selectedCanvas.getGraphicsContext2D().setLineDashes(null);
 
         unselectedCanvas.getGraphicsContext2D().setLineCap(StrokeLineCap.BUTT);
-        unselectedCanvas.getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
         unselectedCanvas.getGraphicsContext2D().setLineWidth(getPolylineWidth());
         unselectedCanvas.getGraphicsContext2D().setLineDashes(null);
 
-        if ((isShowingUnselectedItems()) && (unselectedTuplePolylines != null) && (!unselectedTuplePolylines.isEmpty())) {
+        if ((isShowingUnselectedItems()) && (unselectedPolylines != null) && (!unselectedPolylines.isEmpty())) {
             if (unselectedTuplesTimer != null && unselectedTuplesTimer.isRunning()) {
                 unselectedTuplesTimer.stop();
             }
 
             Color lineColor = new Color(getUnselectedItemsColor().getRed(), getUnselectedItemsColor().getGreen(),
                     getUnselectedItemsColor().getBlue(), getDataItemsOpacity());
-            unselectedTuplesTimer = new TuplePolylineRenderer(unselectedCanvas, unselectedTuplePolylines,
+            unselectedTuplesTimer = new TuplePolylineRenderer(unselectedCanvas, unselectedPolylines,
                     axisList, lineColor, 100, isShowingContextPolylineSegments());
             unselectedTuplesTimer.start();
         }
 
-        if ((isShowingSelectedItems()) && (selectedTuplePolylines != null) && (!selectedTuplePolylines.isEmpty())) {
+        if ((isShowingSelectedItems()) && (selectedPolylines != null) && (!selectedPolylines.isEmpty())) {
             if (selectedTuplesTimer != null && selectedTuplesTimer.isRunning()) {
                 selectedTuplesTimer.stop();
             }
 
             Color lineColor = new Color(getSelectedItemsColor().getRed(), getSelectedItemsColor().getGreen(),
                     getSelectedItemsColor().getBlue(), getDataItemsOpacity());
-            selectedTuplesTimer = new TuplePolylineRenderer(selectedCanvas, selectedTuplePolylines,
+            selectedTuplesTimer = new TuplePolylineRenderer(selectedCanvas, selectedPolylines,
                     axisList, lineColor, 100, isShowingContextPolylineSegments());
             selectedTuplesTimer.start();
         }
@@ -811,6 +837,8 @@ public class DataTableView extends Region implements DataTableListener {
     public void setDataTable(DataTable dataTable) {
         this.dataTable = dataTable;
         dataTable.addDataTableListener(this);
+        queryResult = null;
+        tupleSetsVersion = -1;
         clearView();
         initView();
     }
@@ -1054,19 +1082,20 @@ public class DataTableView extends Region implements DataTableListener {
 
     private void setCorrelationRectangleValues() {
         if (isShowingCorrelations()) {
+            CorrelationMatrix correlationMatrix;
+            if (dataTable.getActiveQuery().hasColumnSelections() && dataTable.getCalculateQueryStatistics()) {
+                correlationMatrix = dataTable.getActiveQuery().getQueryCorrelationMatrix();
+            } else {
+                correlationMatrix = dataTable.getCorrelationMatrix();
+            }
+
             for (CorrelationIndicatorRectangle corrRect : correlationRectangleList) {
 //                int axis2Index = getAxisIndex(corrRect.getAxis2());
-                int axis2ColumnIndex = dataTable.getColumnIndex(corrRect.getAxis2().getColumn());
 
                 if (corrRect.getAxis2().getColumn().getName().equals("Pressure")) {
                     log.info("Pressure correlation");
                 }
-                double corr;
-                if (dataTable.getActiveQuery().hasColumnSelections() && dataTable.getCalculateQueryStatistics()) {
-                    corr = ((DoubleColumnSummaryStats)dataTable.getActiveQuery().getColumnQuerySummaryStats(corrRect.getAxis1().getColumn())).getCorrelationCoefficientList().get(axis2ColumnIndex);
-                } else {
-                    corr = ((DoubleColumnSummaryStats)corrRect.getAxis1().getColumn().getStatistics()).getCorrelationCoefficientList().get(axis2ColumnIndex);
-                }
+                double corr = correlationMatrix.getCorrelation(corrRect.getAxis1().getColumn(), corrRect.getAxis2().getColumn());
 
                 corrRect.setCorrelation(corr);
             }
@@ -1146,6 +1175,7 @@ public class DataTableView extends Region implements DataTableListener {
     }
 
     private void handleQueryChange() {
+        updateQueryResult();
         resizeAxes();
 //        for (int iaxis = 0; iaxis < axisList.size(); iaxis++) {
 //            Axis pcpAxis = axisList.get(iaxis);
@@ -1156,8 +1186,7 @@ public class DataTableView extends Region implements DataTableListener {
 
         if (isShowingScatterplots()) {
             for (Scatterplot scatterplot : scatterplotList) {
-                scatterplot.fillSelectionPointSets();
-                scatterplot.drawPoints();
+                scatterplot.handleQueryChange();
             }
         }
 
@@ -1165,7 +1194,8 @@ public class DataTableView extends Region implements DataTableListener {
             setCorrelationRectangleValues();
         }
 
-        if (isShowingPolylines()) {
+        // the polylines are only sorted and redrawn for a new result of the query
+        if (isShowingPolylines() && tupleSetsVersion != queryResult.getVersion()) {
             fillTupleSets();
             redrawView();
         }
@@ -1220,6 +1250,8 @@ public class DataTableView extends Region implements DataTableListener {
     @Override
     public void dataTableNumHistogramBinsChanged(DataTable dataModel) {
         if (isShowingHistograms()) {
+            // the query histograms have the new bins in the latest result
+            updateQueryResult();
             resizeAxes();
 //            for (int iaxis = 0; iaxis < axisList.size(); iaxis++) {
 //                Axis pcpAxis = axisList.get(iaxis);
@@ -1334,23 +1366,20 @@ public class DataTableView extends Region implements DataTableListener {
 
     @Override
     public void dataTableHighlightedColumnChanged(DataTable dataModel, Column oldHighlightedColumn, Column newHighlightedColumn) {
-        if (dataModel.getHighlightedColumn() == null) {
-            for (Axis axis : axisList) {
-                axis.setHighlighted(false);
-            }
-            highlightedAxis.set(null);
-        } else {
-            for (Axis axis : axisList) {
-                if (axis.getColumn() == newHighlightedColumn) {
-                    axis.setHighlighted(true);
-                    highlightedAxis.set(axis);
-                } else if (axis.getColumn() == oldHighlightedColumn) {
-                    axis.setHighlighted(false);
-                }
+        updateHighlightedAxis(dataModel.getHighlightedColumn());
+        initView();
+    }
+
+    // highlights the axis of the column (none if the column is null)
+    private void updateHighlightedAxis(Column highlightedColumn) {
+        Axis newHighlightedAxis = null;
+        for (Axis axis : axisList) {
+            axis.setHighlighted(highlightedColumn != null && axis.getColumn() == highlightedColumn);
+            if (highlightedColumn != null && axis.getColumn() == highlightedColumn) {
+                newHighlightedAxis = axis;
             }
         }
-
-        initView();
+        highlightedAxis.set(newHighlightedAxis);
     }
 
     @Override
@@ -1363,6 +1392,58 @@ public class DataTableView extends Region implements DataTableListener {
         initView();
     }
 
+    // adds the polylines of the appended rows and draws them over the current drawing; the axis selections are
+    // kept and the appended rows don't change the column extents, so the other polylines keep their layout
+    @Override
+    public void dataTableRowsAppended(DataTable dataTable, int fromRow, int toRow) {
+        if (fromRow == 0 || tuplePolylines == null || axisList.isEmpty() || pcpRegionBounds == null) {
+            initView();
+            return;
+        }
+
+        // the statistics and histograms of the axes include the appended rows (the query flags of the other rows
+        // are the same in the new result)
+        updateQueryResult();
+        resizeAxes();
+
+        boolean hasColumnSelections = dataTable.getActiveQuery().hasColumnSelections();
+        ArrayList<TuplePolyline> appendedSelectedPolylines = new ArrayList<>();
+        ArrayList<TuplePolyline> appendedUnselectedPolylines = new ArrayList<>();
+        for (int row = fromRow; row < toRow; row++) {
+            TuplePolyline tuplePolyline = new TuplePolyline(dataTable.getTuple(row));
+            tuplePolyline.layout(axisList);
+            tuplePolylines.add(tuplePolyline);
+            if (!hasColumnSelections || queryResult.getQueryFlag(row)) {
+                selectedTuplePolylines.add(tuplePolyline);
+                appendedSelectedPolylines.add(tuplePolyline);
+            } else {
+                unselectedTuplePolylines.add(tuplePolyline);
+                appendedUnselectedPolylines.add(tuplePolyline);
+            }
+        }
+        tupleSetsVersion = queryResult.getVersion();
+
+        if (isShowingScatterplots()) {
+            for (Scatterplot scatterplot : scatterplotList) {
+                scatterplot.updatePoints();
+            }
+        }
+
+        if (isShowingCorrelations()) {
+            setCorrelationRectangleValues();
+        }
+
+        if (isShowingPolylines()) {
+            if ((selectedTuplesTimer != null && selectedTuplesTimer.isRunning()) ||
+                    (unselectedTuplesTimer != null && unselectedTuplesTimer.isRunning())) {
+                // the polylines are still being drawn, so they are drawn again with the appended ones
+                redrawView();
+            } else {
+                drawTuplePolylines(appendedSelectedPolylines, appendedUnselectedPolylines);
+            }
+        }
+    }
+
     @Override
     public void dataTableTuplesRemoved(DataTable dataModel, int numTuplesRemoved) {
         // clear axis selections
@@ -1469,5 +1550,89 @@ public class DataTableView extends Region implements DataTableListener {
     @Override
     public void dataTableColumnNameChanged(DataTable dataModel, Column column) { }
 
+    // rebuilds the view once for all of the changes of a batch
+    @Override
+    public void dataTableChanged(DataTable dataTable, DataTableChangeSet changeSet) {
+        if (changeSet.isReset()) {
+            dataTableReset(dataTable);
+            return;
+        }
+
+        // bring the axes and their selections up to date with the table
+        if (changeSet.hasColumnChanges()) {
+            updateAxisList();
+        }
+
+        if (changeSet.isQueryCleared() || changeSet.getRemovedRowCount() > 0) {
+            for (Axis axis : axisList) {
+                axis.removeAllAxisSelections();
+            }
+        }
+        for (Column column : changeSet.getClearedColumns()) {
+            Axis axis = getAxisForColumn(column);
+            if (axis != null) {
+                axis.removeAllAxisSelections();
+            }
+        }
+        for (ColumnSelection columnSelection : changeSet.getRemovedColumnSelections()) {
+            Axis axis = getAxisForColumn(columnSelection.getColumn());
+            if (axis != null) {
+                axis.removeAxisSelection(columnSelection);
+            }
+        }
+        for (ColumnSelection columnSelection : changeSet.getAddedColumnSelections()) {
+            Axis axis = getAxisForColumn(columnSelection.getColumn());
+            if (axis != null) {
+                axis.addAxisSelection(columnSelection);
+            }
+        }
+
+        if (changeSet.hasHighlightedColumnChange()) {
+            updateHighlightedAxis(dataTable.getHighlightedColumn());
+        }
+
+        if (changeSet.hasColumnChanges() || changeSet.hasExtentChanges() || changeSet.hasHighlightedColumnChange() ||
+                changeSet.getRemovedRowCount() > 0) {
+            initView();
+            return;
+        }
+
+        if (changeSet.getAppendedFromRow() != -1) {
+            dataTableRowsAppended(dataTable, changeSet.getAppendedFromRow(), changeSet.getAppendedToRow());
+        }
+        if (changeSet.hasQueryChanges() || changeSet.hasStatisticsChanges()) {
+            handleQueryChange();
+        } else if (changeSet.getAppendedFromRow() == -1 && changeSet.hasHistogramBinChanges() && isShowingHistograms()) {
+            updateQueryResult();
+            resizeAxes();
+        }
+    }
+
+    // removes the axes of the columns that are no longer in the table and adds axes for the new columns (initView
+    // puts them in the column order)
+    private void updateAxisList() {
+        for (int iaxis = axisList.size() - 1; iaxis >= 0; iaxis--) {
+            Axis axis = axisList.get(iaxis);
+            if (!dataTable.getColumns().contains(axis.getColumn())) {
+                axisList.remove(iaxis);
+                pane.getChildren().remove(axis.getGraphicsGroup());
+            }
+        }
+
+        for (int icolumn = 0; icolumn < dataTable.getColumnCount(); icolumn++) {
+            Column column = dataTable.getColumn(icolumn);
+            boolean hasAxis = false;
+            for (Axis axis : axisList) {
+                if (axis.getColumn() == column) {
+                    hasAxis = true;
+                    break;
+                }
+            }
+            if (!hasAxis) {
+                addAxis(column, Math.min(icolumn, axisList.size()));
+            }
+        }
+    }
+
     public enum STATISTICS_DISPLAY_MODE {MEDIAN_BOXPLOT, MEAN_BOXPLOT}
 }
\ No newline at end of file
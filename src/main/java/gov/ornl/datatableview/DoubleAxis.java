@@ -502,7 +502,7 @@ public class DoubleAxis extends UnivariateAxis {
                 DoubleHistogram histogram = doubleColumn().getStatistics().getHistogram();
                 DoubleHistogram queryHistogram = null;
                 if (getDataTable().getActiveQuery().hasColumnSelections()) {
-                    DoubleColumnSummaryStats stats = (DoubleColumnSummaryStats)getDataTable().getActiveQuery().getColumnQuerySummaryStats(doubleColumn());
+                    DoubleColumnSummaryStats stats = (DoubleColumnSummaryStats)getDataTableView().getQueryResult().getColumnQuerySummaryStats(doubleColumn());
                     if (stats != null) {
                         queryHistogram = stats.getHistogram();
                     }
@@ -602,7 +602,7 @@ public class DoubleAxis extends UnivariateAxis {
                 nonquerySummaryStatisticsGroup.setVisible(false);
 
                 if (getDataTable().getActiveQuery().hasColumnSelections()) {
-                    DoubleColumnSummaryStats queryColumnSummaryStats = (DoubleColumnSummaryStats)getDataTable().getActiveQuery().getColumnQuerySummaryStats(getColumn());
+                    DoubleColumnSummaryStats queryColumnSummaryStats = (DoubleColumnSummaryStats)getDataTableView().getQueryResult().getColumnQuerySummaryStats(getColumn());
 
                     double queryDispersionRectangleWidth = doubleAxis().getAxisBar().getWidth() / 4.;
 
@@ -654,7 +654,7 @@ public class DoubleAxis extends UnivariateAxis {
                     }
 
                     // draw nonquery statistics shapes
-                    DoubleColumnSummaryStats nonqueryColumnSummaryStats = (DoubleColumnSummaryStats)getDataTable().getActiveQuery().getColumnNonquerySummaryStats(getColumn());
+                    DoubleColumnSummaryStats nonqueryColumnSummaryStats = (DoubleColumnSummaryStats)getDataTableView().getQueryResult().getColumnNonquerySummaryStats(getColumn());
 
                     if (nonqueryColumnSummaryStats != null) {
                         nonquerySummaryStatisticsGroup.setVisible(true);
@@ -370,7 +370,7 @@ public class TemporalAxis extends UnivariateAxis {
             TemporalHistogram histogram = temporalColumn().getStatistics().getHistogram();
             TemporalHistogram queryHistogram = null;
             if (getDataTable().getActiveQuery().hasColumnSelections()) {
-                TemporalColumnSummaryStats stats = (TemporalColumnSummaryStats) getDataTable().getActiveQuery().getColumnQuerySummaryStats(temporalColumn());
+                TemporalColumnSummaryStats stats = (TemporalColumnSummaryStats) getDataTableView().getQueryResult().getColumnQuerySummaryStats(temporalColumn());
                 if (stats != null) {
                     queryHistogram = stats.getHistogram();
                 }
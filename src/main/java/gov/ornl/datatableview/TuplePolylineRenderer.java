@@ -8,6 +8,7 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.logging.Logger;
@@ -24,6 +25,8 @@ public class TuplePolylineRenderer extends AnimationTimer {
     private int maxTuplesPerFrame;
     private boolean drawContextPolylineSegments;
     private ArrayList<Axis> axisList;
+    // focus row bitsets of the axis columns (used to skip context segments with a bit test)
+    private BitSet axisFocusRows[];
     private BooleanProperty running;
     public long id;
 
@@ -33,6 +36,10 @@ public class TuplePolylineRenderer extends AnimationTimer {
         this.canvas = canvas;
         this.drawContextPolylineSegments = drawContextPolylineSegments;
         this.axisList = axisList;
+        axisFocusRows = new BitSet[axisList.size()];
+        for (int i = 0; i < axisList.size(); i++) {
+            axisFocusRows[i] = axisList.get(i).getColumn().getFocusRows();
+        }
         this.tupleColor = tupleColor;
         tupleQueue = new ArrayBlockingQueue<TuplePolyline>(tuples.size());
         tupleQueue.addAll(tuples);
@@ -55,13 +62,13 @@ public class TuplePolylineRenderer extends AnimationTimer {
                 this.stop();
                 break;
             } else {
+                int row = tuplePolyline.getTuple().getRow();
                 for (int i = 1; i < tuplePolyline.getXPoints().length; i++) {
                     if (!drawContextPolylineSegments) {
 //                        if (tuplePolyline.getInContext()[i-1] || tuplePolyline.getInContext()[i]) {
 //                            continue;
 //                        }
-                        if (!tuplePolyline.getTuple().isElementInFocus(i - 1) ||
-                                !tuplePolyline.getTuple().isElementInFocus(i)) {
+                        if (!axisFocusRows[i - 1].get(row) || !axisFocusRows[i].get(row)) {
                             continue;
                         }
                     }
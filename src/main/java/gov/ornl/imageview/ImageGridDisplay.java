@@ -328,6 +328,11 @@ public class ImageGridDisplay implements DataTableListener {
         initView();
     }
 
+    @Override
+    public void dataTableRowsAppended(DataTable dataTable, int fromRow, int toRow) {
+        initView();
+    }
+
     @Override
     public void dataTableTuplesRemoved(DataTable dataTable, int numTuplesRemoved) {
         initView();
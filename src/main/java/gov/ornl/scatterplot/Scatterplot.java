@@ -10,6 +10,7 @@ import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.Group;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
@@ -32,6 +33,11 @@ public class Scatterplot {
             Color.STEELBLUE.getGreen(), Color.STEELBLUE.getBlue(), DEFAULT_POINT_STROKE_OPACITY);
     private static final Color DEFAULT_UNSELECTED_POINT_COLOR = new Color(Color.LIGHTGRAY.getRed(),
             Color.LIGHTGRAY.getGreen(), Color.LIGHTGRAY.getBlue(), DEFAULT_POINT_STROKE_OPACITY);
+    // tables with more rows than this draw a pair of numeric or temporal columns as the cells of their 2D
+    // histogram (the cost depends on the number of bins) instead of a point per row
+    private static final int DENSITY_ROW_THRESHOLD = 50000;
+    // opacity of the least populated nonempty cell, so sparse regions stay visible next to the densest cell
+    private static final double MIN_DENSITY_CELL_OPACITY = 0.15;
 
     private Column xColumn;
     private Column yColumn;
@@ -59,6 +65,12 @@ public class Scatterplot {
     private HashSet<double[]> unselectedPoints = new HashSet<>();
     private HashMap<double[], Tuple> pointTupleMap = new HashMap<>();
 
+    private boolean showingDensity = false;
+    // the result of the active query the selected and unselected points were filled from
+    private QueryResult queryResult;
+    private Histogram2D selectedHistogram2D;
+    private Histogram2D unselectedHistogram2D;
+
     private Color axisStrokeColor = DEFAULT_AXIS_STROKE_COLOR;
     private Color axisTextColor = DEFAULT_AXIS_TEXT_COLOR;
     private Color selectedPointStrokeColor;
@@ -463,13 +475,42 @@ public class Scatterplot {
         }
     }
 
+    // recalculates the points from the table (e.g., after rows were appended) and redraws them
+    public void updatePoints() {
+        if (plotBounds != null) {
+            calculatePoints();
+            drawPoints();
+        }
+    }
+
+    // refills and redraws the selected and unselected points if the active query has a new result
+    public void handleQueryChange() {
+        if (queryResult != null && queryResult.getVersion() == dataTable.getActiveQuery().getResult().getVersion()) {
+            return;
+        }
+        fillSelectionPointSets();
+        drawPoints();
+    }
+
     public void fillSelectionPointSets() {
         selectedPoints.clear();
         unselectedPoints.clear();
+        queryResult = dataTable.getActiveQuery().getResult();
+
+        if (showingDensity) {
+            if (dataTable.getActiveQuery().hasColumnSelections()) {
+                selectedHistogram2D = dataTable.getActiveQuery().getQueryHistogram2D(xColumn, yColumn);
+                unselectedHistogram2D = dataTable.getActiveQuery().getNonqueryHistogram2D(xColumn, yColumn);
+            } else {
+                selectedHistogram2D = dataTable.getHistogram2D(xColumn, yColumn);
+                unselectedHistogram2D = null;
+            }
+            return;
+        }
 
         if (xColumn.getDataTable().getActiveQuery().hasColumnSelections()) {
             for (double point[] : points) {
-                if (pointTupleMap.get(point).getQueryFlag()) {
+                if (queryResult.getQueryFlag(pointTupleMap.get(point).getRow())) {
                     selectedPoints.add(point);
                 } else {
                     unselectedPoints.add(point);
@@ -589,6 +630,14 @@ public class Scatterplot {
         dataBounds = new BoundingBox(xMinValuePosition, yMinValuePosition, xMaxValuePosition - xMinValuePosition,
                 yMaxValuePosition - yMinValuePosition);
 
+        // the 2D histogram is null for categorical columns and columns without statistics
+        showingDensity = dataTable.getTupleCount() > DENSITY_ROW_THRESHOLD &&
+                dataTable.getHistogram2D(xColumn, yColumn) != null;
+        if (showingDensity) {
+            fillSelectionPointSets();
+            return;
+        }
+
 //        if (xColumn.getName().equals("NE_34kt")) {
 //            log.info("NE_34kt column");
 //        }
@@ -796,12 +845,79 @@ public class Scatterplot {
 
     public Bounds getDataBounds() { return dataBounds; }
 
+    public boolean isShowingDensity() { return showingDensity; }
+
+    private void drawDensity() {
+        // both layers share the densest cell so the selected and unselected opacities are comparable
+        int maxBinCount = Math.max(selectedHistogram2D == null ? 0 : selectedHistogram2D.getMaxBinCount(),
+                unselectedHistogram2D == null ? 0 : unselectedHistogram2D.getMaxBinCount());
+
+        if (getShowUnselectedPoints() && unselectedHistogram2D != null) {
+            drawHistogram2D(unselectedCanvas.getGraphicsContext2D(), unselectedHistogram2D,
+                    getUnselectedPointStrokeColor(), maxBinCount);
+        }
+
+        if (getShowSelectedPoints() && selectedHistogram2D != null) {
+            drawHistogram2D(selectedCanvas.getGraphicsContext2D(), selectedHistogram2D,
+                    getSelectedPointStrokeColor(), maxBinCount);
+        }
+    }
+
+    private void drawHistogram2D(GraphicsContext gc, Histogram2D histogram2D, Color color, int maxBinCount) {
+        // the bins cover the column ranges, which may extend beyond the focus ranges shown on the axes
+        gc.save();
+        gc.beginPath();
+        gc.rect(yAxisBounds.getWidth(), 0., plotBounds.getWidth(), plotBounds.getHeight());
+        gc.clip();
+
+        for (int xBin = 0; xBin < histogram2D.getNumBins(); xBin++) {
+            double left = getDensityXPosition(histogram2D.getXBinLowerBound(xBin));
+            double right = getDensityXPosition(histogram2D.getXBinUpperBound(xBin));
+            for (int yBin = 0; yBin < histogram2D.getNumBins(); yBin++) {
+                int binCount = histogram2D.getBinCount(xBin, yBin);
+                if (binCount == 0) {
+                    continue;
+                }
+                double top = getDensityYPosition(histogram2D.getYBinUpperBound(yBin));
+                double bottom = getDensityYPosition(histogram2D.getYBinLowerBound(yBin));
+                double opacity = MIN_DENSITY_CELL_OPACITY + (1. - MIN_DENSITY_CELL_OPACITY) * binCount / maxBinCount;
+                gc.setFill(new Color(color.getRed(), color.getGreen(), color.getBlue(), opacity));
+                gc.fillRect(left, top, right - left, bottom - top);
+            }
+        }
+
+        gc.restore();
+    }
+
+    // canvas positions of 2D histogram bin bounds (epoch milliseconds for a temporal column)
+    private double getDensityXPosition(double value) {
+        if (xColumn instanceof TemporalColumn) {
+            return GraphicsUtil.mapValue(value, xAxisStartInstant.toEpochMilli(), xAxisEndInstant.toEpochMilli(),
+                    yAxisBounds.getWidth(), selectedCanvas.getWidth());
+        }
+        return GraphicsUtil.mapValue(value, xAxisMinDoubleValue, xAxisMaxDoubleValue, yAxisBounds.getWidth(),
+                selectedCanvas.getWidth());
+    }
+
+    private double getDensityYPosition(double value) {
+        if (yColumn instanceof TemporalColumn) {
+            return GraphicsUtil.mapValue(value, yAxisStartInstant.toEpochMilli(), yAxisEndInstant.toEpochMilli(),
+                    plotBounds.getHeight(), 0.);
+        }
+        return GraphicsUtil.mapValue(value, yAxisMinDoubleValue, yAxisMaxDoubleValue, plotBounds.getHeight(), 0.);
+    }
+
     public void drawPoints() {
         unselectedCanvas.getGraphicsContext2D().clearRect(0, 0, unselectedCanvas.getWidth(), unselectedCanvas.getHeight());
 
         selectedCanvas.getGraphicsContext2D().clearRect(0, 0, selectedCanvas.getWidth(), selectedCanvas.getHeight());
         selectedCanvas.getGraphicsContext2D().setLineWidth(getPointStrokeWidth());
 
+        if (showingDensity) {
+            drawDensity();
+            return;
+        }
+
         if (getShowUnselectedPoints()) {
             Color color = new Color(getUnselectedPointStrokeColor().getRed(), getUnselectedPointStrokeColor().getGreen(),
                     getUnselectedPointStrokeColor().getBlue(), getPointStrokeOpacity());